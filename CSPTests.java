@@ -0,0 +1,221 @@
+package csp;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import metrics.SolverStats;
+
+/**
+ * Unit tests for CSP. Tests include solutions checked against every constraint,
+ * and instances with no solution, for each of the solvers.
+ */
+public class CSPTests {
+
+    private static final LocalDate START = LocalDate.of(2019, 1, 1);
+
+    @Test
+    public void testBackjumping_jumpsPastUnrelated() {
+        // Meetings 3 and 4 need both of Jan 1-2 to themselves, so meeting 0 must take
+        // Jan 3; each dead end at 4 is then 0's fault, and the search should jump back
+        // to it past meetings 1 and 2, which take part in no constraint
+        Set<DateConstraint> constraints = new HashSet<>();
+        constraints.add(new UnaryDateConstraint(3, "<=", START.plusDays(1)));
+        constraints.add(new UnaryDateConstraint(4, "<=", START.plusDays(1)));
+        constraints.add(new BinaryDateConstraint(0, "!=", 3));
+        constraints.add(new BinaryDateConstraint(0, "!=", 4));
+        constraints.add(new BinaryDateConstraint(3, "!=", 4));
+
+        SolverStats jumping = new SolverStats(), backtracking = new SolverStats();
+        List<LocalDate> solution = CSP.solveBackjumping(5, START, START.plusDays(2), constraints, jumping);
+        CSP.solve(5, START, START.plusDays(2), constraints, backtracking);
+        assertNotNull(solution);
+        assertTrue(CSP.testSolution(solution, constraints));
+        assertEquals(START.plusDays(2), solution.get(0));
+        assertTrue(jumping.backtracks > 0);
+        assertTrue(jumping.nodesExpanded < backtracking.nodesExpanded);
+
+        // With meeting 0 held to Jan 1-2 as well, no schedule exists
+        constraints.add(new UnaryDateConstraint(0, "<=", START.plusDays(1)));
+        assertNull(CSP.solveBackjumping(5, START, START.plusDays(2), constraints));
+    }
+
+    @Test
+    public void testBackjumping_agreesWithBacktracking() {
+        // Random graphs to 3-colour, with three days as the colours
+        Random random = new Random(42);
+        long prunes = 0;
+        for (int t = 0; t < 20; t++) {
+            int n = 12 + random.nextInt(10);
+            Set<DateConstraint> constraints = new HashSet<>();
+            for (int k = 0; k < 2 * n + n / 4; k++) {
+                int a = random.nextInt(n), b = random.nextInt(n);
+                if (a != b) {
+                    constraints.add(new BinaryDateConstraint(a, "!=", b));
+                }
+            }
+            SolverStats stats = new SolverStats();
+            List<LocalDate> solution = CSP.solveBackjumping(n, START, START.plusDays(2), constraints, stats);
+            assertEquals(CSP.solve(n, START, START.plusDays(2), constraints) == null, solution == null);
+            if (solution != null) {
+                assertEquals(n, solution.size());
+                assertTrue(CSP.testSolution(solution, constraints));
+            }
+            prunes += stats.prunes;
+        }
+        assertTrue(prunes > 0); // Learned nogoods were put to use
+    }
+
+    @Test
+    public void testBackjumping_manyNogoods() {
+        // Eight meetings on seven days, all apart: enough dead ends to fill the
+        // nogood store (4096) past capacity before the search runs out
+        int n = 8;
+        Set<DateConstraint> constraints = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                constraints.add(new BinaryDateConstraint(i, "!=", j));
+            }
+        }
+        SolverStats stats = new SolverStats();
+        assertNull(CSP.solveBackjumping(n, START, START.plusDays(n - 2), constraints, stats));
+        assertTrue(stats.backtracks > 4096);
+
+        List<LocalDate> solution = CSP.solveBackjumping(n, START, START.plusDays(n - 1), constraints);
+        assertTrue(CSP.testSolution(solution, constraints));
+    }
+
+    @Test
+    public void testSession_addAndRemove() {
+        CSP.Session session = new CSP.Session(3, START, START.plusDays(4));
+        Set<DateConstraint> constraints = new HashSet<>();
+        DateConstraint[] chain = {
+            new BinaryDateConstraint(0, "<", 1),
+            new BinaryDateConstraint(1, "<", 2)
+        };
+        for (DateConstraint constraint : chain) {
+            constraints.add(constraint);
+            assertTrue(CSP.testSolution(session.addConstraint(constraint), constraints));
+        }
+        List<LocalDate> before = session.solution();
+
+        // Holding meeting 0 late moves the whole chain
+        DateConstraint late = new UnaryDateConstraint(0, ">=", START.plusDays(2));
+        Set<DateConstraint> withLate = new HashSet<>(constraints);
+        withLate.add(late);
+        assertTrue(CSP.testSolution(session.addConstraint(late), withLate));
+
+        // Taking it away again restores a schedule of the earlier constraints
+        List<LocalDate> after = session.removeConstraint(late);
+        assertNotNull(after);
+        assertTrue(CSP.testSolution(before, constraints));
+        assertTrue(CSP.testSolution(after, constraints));
+    }
+
+    @Test
+    public void testSession_contradiction() {
+        CSP.Session session = new CSP.Session(3, START, START.plusDays(4));
+        Set<DateConstraint> constraints = new HashSet<>();
+        constraints.add(new BinaryDateConstraint(0, "<", 1));
+        constraints.add(new BinaryDateConstraint(1, "<", 2));
+        for (DateConstraint constraint : constraints) {
+            session.addConstraint(constraint);
+        }
+
+        // Meeting 2 before meeting 0 closes a cycle of "<": no schedule exists
+        DateConstraint cycle = new BinaryDateConstraint(2, "<", 0);
+        assertNull(session.addConstraint(cycle));
+        assertNull(session.solution());
+        List<LocalDate> restored = session.removeConstraint(cycle);
+        assertNotNull(restored);
+        assertTrue(CSP.testSolution(restored, constraints));
+    }
+
+    @Test
+    public void testSession_agreesWithSolve() {
+        // Random edits, each answered as a fresh solve would: a schedule exactly
+        // when one exists, through repairs widened over several rounds
+        String[] ops = {"==", "!=", "<", "<=", ">", ">="};
+        Random random = new Random(43);
+        int n = 8, days = 6;
+        CSP.Session session = new CSP.Session(n, START, START.plusDays(days - 1));
+        List<DateConstraint> held = new ArrayList<>();
+        for (int edit = 0; edit < 300; edit++) {
+            List<LocalDate> solution;
+            if (held.size() > 10 || (!held.isEmpty() && random.nextInt(3) == 0)) {
+                solution = session.removeConstraint(held.remove(random.nextInt(held.size())));
+            } else {
+                DateConstraint added = (random.nextInt(4) == 0)
+                    ? new UnaryDateConstraint(random.nextInt(n), ops[random.nextInt(6)], START.plusDays(random.nextInt(days)))
+                    : new BinaryDateConstraint(random.nextInt(n), ops[random.nextInt(6)], random.nextInt(n));
+                held.add(added);
+                solution = session.addConstraint(added);
+            }
+            Set<DateConstraint> constraints = new HashSet<>(held);
+            assertEquals(CSP.solve(n, START, START.plusDays(days - 1), constraints) == null, solution == null);
+            if (solution != null) {
+                assertTrue(CSP.testSolution(solution, constraints));
+            }
+        }
+    }
+
+    @Test
+    public void testLocal_solvable() {
+        // Constraints that a schedule chosen at random satisfies, so that one exists
+        String[] ops = {"==", "!=", "<", "<=", ">", ">="};
+        Random random = new Random(44);
+        int n = 300, days = 100;
+        int[] planted = new int[n];
+        for (int i = 0; i < n; i++) {
+            planted[i] = random.nextInt(days);
+        }
+        Set<DateConstraint> constraints = new HashSet<>();
+        while (constraints.size() < 3 * n) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            String op = ops[random.nextInt(6)];
+            if (a != b && CSP.metConstraint(START.plusDays(planted[a]), new BinaryDateConstraint(a, op, b), START.plusDays(planted[b]))) {
+                constraints.add(new BinaryDateConstraint(a, op, b));
+            }
+        }
+        // No time limit, so the walkers search until they find it
+        for (int walkers : new int[] {1, 3}) {
+            SolverStats stats = new SolverStats();
+            List<LocalDate> solution = CSP.solveLocal(n, START, START.plusDays(days - 1), constraints, Long.MAX_VALUE, walkers, stats);
+            assertNotNull(solution);
+            assertEquals(n, solution.size());
+            assertTrue(CSP.testSolution(solution, constraints));
+            assertTrue(stats.nodesExpanded > 0);
+        }
+    }
+
+    @Test
+    public void testLocal_interrupted() throws InterruptedException {
+        // A cycle of "<" has no schedule, so the walkers would search out their
+        // whole minute were the caller not interrupted
+        int n = 200;
+        Set<DateConstraint> constraints = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            constraints.add(new BinaryDateConstraint(i, "<", (i + 1) % n));
+        }
+        for (int walkers : new int[] {1, 3}) {
+            Object[] result = {"unfinished", null};
+            Thread caller = new Thread(() -> {
+                result[0] = CSP.solveLocal(n, START, START.plusDays(364), constraints, 60_000_000_000L, walkers, null);
+                result[1] = Thread.currentThread().isInterrupted();
+            });
+            caller.start();
+            Thread.sleep(200);
+            caller.interrupt();
+            caller.join(5000);
+            assertFalse(caller.isAlive());
+            assertNull(result[0]);
+            assertEquals(true, result[1]); // The caller is still marked interrupted
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+package pathfinder.uninformed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import metrics.SolverStats;
+import pathfinder.search.ActionPath;
+import pathfinder.search.Grid;
+
+/**
+ * Bit-parallel breadth-first search for mazes in which every step costs the same.
+ * Rather than expanding one cell at a time, each row of the frontier, the visited
+ * set and the open cells is held as a bitset of long words, and a whole wavefront
+ * is expanded per iteration with shifts and masks, 64 cells to a word. The path is
+ * recovered by walking back from the goal through the stored wavefronts.
+ */
+public class FloodFill {
+    
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final int rows, cols, words;
+    private final long[] open;
+    private final MazeState start, goal;
+    
+    /**
+     * Wavefronts by distance from the start, each as its nonzero words and their
+     * indices; kept only when a path is wanted
+     */
+    private final ArrayList<int[]> layerWords = new ArrayList<>();
+    private final ArrayList<long[]> layerBits = new ArrayList<>();
+    
+    private FloodFill (MazeProblem problem) {
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.words = (cols + 63) >>> 6;
+        if ((long) rows * words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large to flood");
+        }
+        this.start = problem.INITIAL_STATE;
+        this.goal = problem.GOAL_STATE;
+        open = new long[rows * words];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (problem.cellAt(row, col) != 'X') {
+                    open[row * words + (col >>> 6)] |= 1L << col;
+                }
+            }
+        }
+    }
+    
+    
+    // Methods
+    // -----------------------------------------------------------------------------
+    
+    /**
+     * Returns whether the goal of the given MazeProblem can be reached at all.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return Whether any path leads from the initial to the goal state
+     */
+    public static boolean reachable (MazeProblem problem) {
+        return distance(problem) >= 0;
+    }
+    
+    /**
+     * Returns the length of the shortest path from the initial to the goal state
+     * of the given MazeProblem, without storing the wavefronts needed to recover it.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return The number of steps on a shortest path, or -1 if the goal cannot be reached
+     */
+    public static int distance (MazeProblem problem) {
+        if (problem.INITIAL_STATE == null || problem.GOAL_STATE == null) {
+            return -1;
+        }
+        return new FloodFill(problem).flood(false, null);
+    }
+    
+    /**
+     * Solves the given MazeProblem as {@link Pathfinder#findPath} does, flooding a
+     * wavefront at a time; nodesExpanded counts the cells in every wavefront.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param stats Stats to count into, or null
+     * @return An ActionPath leading from the initial to the goal state, or null
+     * if the goal cannot be reached
+     */
+    public static ActionPath findPath (MazeProblem problem, SolverStats stats) {
+        if (problem.INITIAL_STATE == null || problem.GOAL_STATE == null) {
+            return null;
+        }
+        stats = SolverStats.begin("pathfinder.floodFill", stats);
+        FloodFill fill = new FloodFill(problem);
+        int depth = fill.flood(true, stats);
+        ActionPath path = (depth < 0) ? null : fill.retrace(depth);
+        if (stats != null) {
+            stats.end();
+        }
+        return path;
+    }
+    
+    /**
+     * Expands wavefronts outwards from the start until one reaches the goal. Only
+     * the words holding some of the last wavefront, and the words next to them,
+     * are touched, so no iteration costs more than the wavefront is wide.
+     * @return The distance of the goal, or -1 if the wavefronts die out first
+     */
+    private int flood (boolean keepLayers, SolverStats stats) {
+        if (start.equals(goal)) {
+            return 0;
+        }
+        // Words outside the current wavefront are kept zero in frontier and next,
+        // and the words that are not are listed in active and reached
+        long[] visited = new long[rows * words],
+               frontier = new long[rows * words],
+               next = new long[rows * words];
+        int[] seenAt = new int[rows * words],
+              active = new int[16],
+              reached = new int[16];
+        int activeCount = 1,
+            startWord = start.row * words + (start.col >>> 6),
+            goalWord = goal.row * words + (goal.col >>> 6);
+        long goalBit = 1L << goal.col;
+        frontier[startWord] = visited[startWord] = 1L << start.col;
+        active[0] = startWord;
+        if (keepLayers) {
+            keepLayer(frontier, active, activeCount);
+        }
+        
+        for (int depth = 1; activeCount > 0; depth++) {
+            int reachedCount = 0;
+            long cells = 0;
+            for (int a = 0; a < activeCount; a++) {
+                int word = active[a], w = word % words;
+                long f = frontier[word];
+                for (int n = 0; n < 5; n++) {
+                    int i;
+                    switch (n) {
+                    case 0:  i = word; break;
+                    case 1:  i = (w > 0 && (f & 1) != 0) ? word - 1 : -1; break;
+                    case 2:  i = (w < words - 1 && f < 0) ? word + 1 : -1; break;
+                    case 3:  i = (word >= words) ? word - words : -1; break;
+                    default: i = (word < (rows - 1) * words) ? word + words : -1;
+                    }
+                    if (i < 0 || seenAt[i] == depth) {
+                        continue;
+                    }
+                    seenAt[i] = depth;
+                    long bits = spread(frontier, i) & open[i] & ~visited[i];
+                    if (bits != 0) {
+                        next[i] = bits;
+                        visited[i] |= bits;
+                        if (reachedCount == reached.length) {
+                            reached = Arrays.copyOf(reached, reachedCount * 2);
+                        }
+                        reached[reachedCount++] = i;
+                        if (stats != null) {
+                            cells += Long.bitCount(bits);
+                        }
+                    }
+                }
+            }
+            
+            if (stats != null) {
+                stats.nodesExpanded += cells;
+                stats.frontier(cells);
+            }
+            for (int a = 0; a < activeCount; a++) {
+                frontier[active[a]] = 0;
+            }
+            long[] swapBits = frontier;
+            frontier = next;
+            next = swapBits;
+            int[] swapWords = active;
+            active = reached;
+            reached = swapWords;
+            activeCount = reachedCount;
+            if (keepLayers) {
+                keepLayer(frontier, active, activeCount);
+            }
+            if ((frontier[goalWord] & goalBit) != 0) {
+                return depth;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the cells of word i that are one step from some cell of frontier,
+     * walls aside: each bit shifted left and right, with carries across word
+     * boundaries, and the same word in the rows above and below.
+     */
+    private long spread (long[] frontier, int i) {
+        long f = frontier[i],
+             result = f | (f << 1) | (f >>> 1);
+        int w = i % words;
+        if (w > 0) {
+            result |= frontier[i - 1] >>> 63;
+        }
+        if (w < words - 1) {
+            result |= frontier[i + 1] << 63;
+        }
+        if (i >= words) {
+            result |= frontier[i - words];
+        }
+        if (i < (rows - 1) * words) {
+            result |= frontier[i + words];
+        }
+        return result;
+    }
+    
+    /**
+     * Stores the wavefront as its nonzero words, sorted by index for lookup.
+     */
+    private void keepLayer (long[] frontier, int[] active, int count) {
+        int[] index = Arrays.copyOf(active, count);
+        Arrays.sort(index);
+        long[] bits = new long[count];
+        for (int a = 0; a < count; a++) {
+            bits[a] = frontier[index[a]];
+        }
+        layerWords.add(index);
+        layerBits.add(bits);
+    }
+    
+    private boolean inLayer (int depth, int row, int col) {
+        int a = Arrays.binarySearch(layerWords.get(depth), row * words + (col >>> 6));
+        return a >= 0 && (layerBits.get(depth)[a] & (1L << col)) != 0;
+    }
+    
+    /**
+     * Walks back from the goal through the stored wavefronts: a cell at distance
+     * depth always has a neighbor in the wavefront at depth - 1.
+     */
+    private ActionPath retrace (int depth) {
+        int[] steps = new int[depth];
+        int row = goal.row, col = goal.col;
+        for (int k = depth; k > 0; k--) {
+            for (int d = 0; d < 4; d++) {
+                int prevRow = row - Grid.DROW[d], prevCol = col - Grid.DCOL[d];
+                if (prevRow >= 0 && prevRow < rows && prevCol >= 0 && prevCol < cols &&
+                    inLayer(k - 1, prevRow, prevCol)) {
+                    steps[k - 1] = d;
+                    row = prevRow;
+                    col = prevCol;
+                    break;
+                }
+            }
+        }
+        ActionPath.Builder path = new ActionPath.Builder(Grid.ACTIONS);
+        for (int d : steps) {
+            path.add(d);
+        }
+        return path.build();
+    }
+    
+}
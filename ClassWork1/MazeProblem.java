@@ -4,12 +4,18 @@ import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import pathfinder.search.ActionPath;
+import pathfinder.search.Grid;
+import pathfinder.search.SearchProblem;
+
 /**
  * Specifies the Maze Grid pathfinding problem including the actions, transitions,
  * goal test, and solution test. Can be fed as an input to a Search algorithm to
  * find and then test a solution.
+ * <p>
+ * As a {@link SearchProblem}, each state is a cell, encoded as row * cols + col.
  */
-public class MazeProblem {
+public class MazeProblem implements SearchProblem {
 
     // Fields
     // -----------------------------------------------------------------------------
@@ -130,6 +136,87 @@ public class MazeProblem {
         return result;
     }
     
+    /**
+     * @return The number of rows in this maze
+     */
+    public int getRows () {
+        return rows;
+    }
+    
+    /**
+     * @return The number of columns in this maze
+     */
+    public int getCols () {
+        return cols;
+    }
+    
+    /**
+     * Returns the maze entity at the given position.
+     */
+    char cellAt (int row, int col) {
+        return maze[row].charAt(col);
+    }
+    
+    
+    // SearchProblem
+    // -----------------------------------------------------------------------------
+    
+    @Override
+    public int stateCount () {
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large to search");
+        }
+        return rows * cols;
+    }
+    
+    @Override
+    public int initialState () {
+        return INITIAL_STATE.row * cols + INITIAL_STATE.col;
+    }
+    
+    @Override
+    public boolean isGoal (int state) {
+        return state == GOAL_STATE.row * cols + GOAL_STATE.col;
+    }
+    
+    @Override
+    public int successors (int state, int[] successors) {
+        int row = state / cols, col = state % cols, count = 0;
+        for (int d = 0; d < 4; d++) {
+            int nRow = row + Grid.DROW[d], nCol = col + Grid.DCOL[d];
+            if (nRow >= 0 && nRow < rows && nCol >= 0 && nCol < cols &&
+                maze[nRow].charAt(nCol) != 'X') {
+                successors[count++] = nRow * cols + nCol;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int maxSuccessors () {
+        return 4;
+    }
+    
+    @Override
+    public int action (int from, int to) {
+        return Grid.direction(from, to, cols);
+    }
+    
+    @Override
+    public String[] actionNames () {
+        return Grid.ACTIONS;
+    }
+    
+    @Override
+    public int cost (int from, int to) {
+        return 1;
+    }
+    
+    @Override
+    public int maxCost () {
+        return 1;
+    }
+    
     /**
      * Given a possibleSoln, tests to ensure that it is indeed a solution to this MazeProblem,
      * as well as returning the cost.
@@ -161,4 +248,33 @@ public class MazeProblem {
         return result;
     }
     
+    /**
+     * Tests a possibleSoln as {@link #testSolution(ArrayList)} does, but works on the
+     * compact ActionPath directly, with no per-step String or Map lookups.
+     * 
+     * @param possibleSoln A possible solution to test, with action codes indexing Grid.ACTIONS,
+     * or null where a search found none
+     * @return A 2-element array of ints of the format [isSoln, cost], which is [0, -1]
+     * for a null possibleSoln
+     */
+    public int[] testSolution (ActionPath possibleSoln) {
+        int row = INITIAL_STATE.row, col = INITIAL_STATE.col;
+        int[] result = {0, -1};
+        if (possibleSoln == null) {
+            return result;
+        }
+        for (int i = 0; i < possibleSoln.size(); i++) {
+            int d = possibleSoln.code(i);
+            row += Grid.DROW[d];
+            col += Grid.DCOL[d];
+            if (row < 0 || row >= rows || col < 0 || col >= cols ||
+                maze[row].charAt(col) == 'X') {
+                return result;
+            }
+        }
+        result[0] = (row == GOAL_STATE.row && col == GOAL_STATE.col) ? 1 : 0;
+        result[1] = possibleSoln.size();
+        return result;
+    }
+    
 }
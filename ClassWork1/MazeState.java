@@ -39,7 +39,7 @@ public class MazeState {
     
     @Override
     public int hashCode () {
-        return row * col;
+        return 31 * row + col;
     }
     
     public String toString () {
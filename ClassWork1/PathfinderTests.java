@@ -4,6 +4,8 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import java.util.ArrayList;
 
+import pathfinder.search.ActionPath;
+
 /**
  * Unit tests for Maze Pathfinder. Tests include completeness and
  * optimality.
@@ -46,5 +48,68 @@ public class PathfinderTests {
         assertEquals(1,  result[0]); // Test that result is a solution
         assertEquals(12, result[1]); // Ensure that the solution is optimal
     }
+    
+    @Test
+    public void testPathfinder_compactPath() {
+        String[] maze = {
+            "XXXXXXX",
+            "X.....X",
+            "XIX.X.X",
+            "XX.X..X",
+            "XG....X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ActionPath path = Pathfinder.findPath(prob, null);
+        
+        // The compact form and its List view must test the same as the ArrayList form
+        int[] result = prob.testSolution(path);
+        assertEquals(1,  result[0]);
+        assertEquals(12, result[1]);
+        assertEquals(Pathfinder.solve(prob), path.asList());
+        assertEquals(12, prob.testSolution(new ArrayList<>(path.asList()))[1]);
+    }
+    
+    @Test
+    public void testFloodFill_t1() {
+        String[] maze = {
+            "XXXXXXX",
+            "X.....X",
+            "XIX.X.X",
+            "XX.X..X",
+            "XG....X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ActionPath path = FloodFill.findPath(prob, null);
+        
+        int[] result = prob.testSolution(path);
+        assertEquals(1,  result[0]);
+        assertEquals(12, result[1]);
+        assertEquals(12, FloodFill.distance(prob));
+        
+        // Walling off the goal leaves no path
+        maze[4] = "XGX...X";
+        maze[3] = "XXXX..X";
+        assertFalse(FloodFill.reachable(new MazeProblem(maze)));
+    }
+    
+    @Test
+    public void testPathfinder_noSolution() {
+        String[] maze = {
+            "XXXXX",
+            "XI.XX",
+            "XXXGX",
+            "XXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ActionPath path = Pathfinder.findPath(prob, null);
+        
+        // No path to test is not a solution, rather than an error
+        assertNull(path);
+        int[] result = prob.testSolution(path);
+        assertEquals(0,  result[0]);
+        assertEquals(-1, result[1]);
+    }
 
 }
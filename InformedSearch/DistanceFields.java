@@ -0,0 +1,200 @@
+package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import metrics.SolverStats;
+import pathfinder.search.ActionPath;
+import pathfinder.search.BucketQueue;
+import pathfinder.search.Grid;
+
+/**
+ * Distance fields over a maze for routing many agents at once: the cost from every
+ * cell to the key, and from every cell to the nearest goal, each found by a single
+ * multi-source Dijkstra run backwards from the key or from all of the goals. Any
+ * start's key-then-goal route can then be read off in O(path length) by greedy
+ * descent, so N agents cost two searches rather than N.
+ */
+public class DistanceFields {
+    
+    /**
+     * Distance of a cell from which the sources cannot be reached
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    
+    private final MazeProblem problem;
+    private final int rows, cols;
+    private final int[] toKey, toGoal;
+    
+    private DistanceFields (MazeProblem problem, SolverStats stats) {
+        if ((long) problem.getRows() * problem.getCols() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large for distance fields");
+        }
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        int[] goals = new int[problem.GOAL_STATE.size()];
+        int g = 0;
+        for (MazeState goal : problem.GOAL_STATE.values()) {
+            goals[g++] = goal.row * cols + goal.col;
+        }
+        toGoal = reverseDijkstra(goals, stats);
+        toKey = (problem.KEY_STATE == null)
+            ? null
+            : reverseDijkstra(new int[] {problem.KEY_STATE.row * cols + problem.KEY_STATE.col}, stats);
+    }
+    
+    /**
+     * Computes the distance fields to the key and to the goals of the given maze.
+     * 
+     * @param problem A MazeProblem that specifies the maze, key and goals
+     * @param stats Stats to count into, or null
+     * @return DistanceFields from which routes can be read for any start
+     */
+    public static DistanceFields compute (MazeProblem problem, SolverStats stats) {
+        stats = SolverStats.begin("pathfinder.distanceFields", stats);
+        DistanceFields fields = new DistanceFields(problem, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return fields;
+    }
+    
+    /**
+     * @return The least cost of moving from start to the key, or UNREACHABLE
+     */
+    public int distanceToKey (MazeState start) {
+        return (toKey == null) ? 0 : toKey[start.row * cols + start.col];
+    }
+    
+    /**
+     * @return The least cost of moving from start to the nearest goal, or UNREACHABLE
+     */
+    public int distanceToGoal (MazeState start) {
+        return toGoal[start.row * cols + start.col];
+    }
+    
+    /**
+     * Returns the least cost of a route from start, through the key, to a goal.
+     * 
+     * @param start The MazeState (col, row) an agent starts from
+     * @return The cost of the route, or UNREACHABLE if there is none
+     */
+    public int cost (MazeState start) {
+        int cell = start.row * cols + start.col,
+            viaKey = (toKey == null) ? cell : problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        if ((toKey != null && toKey[cell] == UNREACHABLE) || toGoal[viaKey] == UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        return ((toKey == null) ? 0 : toKey[cell]) + toGoal[viaKey];
+    }
+    
+    /**
+     * Returns an optimal route from start, through the key, to a goal, found by
+     * descending the distance field to the key and then the one to the goals.
+     * 
+     * @param start The MazeState (col, row) an agent starts from
+     * @return An ActionPath leading from start, through the key, to a goal, or
+     * null if there is none
+     */
+    public ActionPath route (MazeState start) {
+        if (cost(start) == UNREACHABLE) {
+            return null;
+        }
+        ActionPath.Builder path = new ActionPath.Builder(Grid.ACTIONS);
+        int cell = start.row * cols + start.col;
+        if (toKey != null) {
+            cell = descend(toKey, cell, path);
+        }
+        descend(toGoal, cell, path);
+        return path.build();
+    }
+    
+    /**
+     * Returns the optimal route for each of the given starts, in order.
+     * 
+     * @param starts The MazeStates (col, row) that agents start from
+     * @return An ActionPath for each start, or null where there is none
+     */
+    public List<ActionPath> routes (List<MazeState> starts) {
+        List<ActionPath> result = new ArrayList<>(starts.size());
+        for (MazeState start : starts) {
+            result.add(route(start));
+        }
+        return result;
+    }
+    
+    /**
+     * Follows the given field downhill from cell to one of its sources, appending
+     * each step to path: from every cell off the sources, some neighbor's distance
+     * plus the cost of entering it equals the cell's own distance.
+     * @return The source reached
+     */
+    private int descend (int[] field, int cell, ActionPath.Builder path) {
+        while (field[cell] > 0) {
+            int row = cell / cols, col = cell % cols;
+            for (int d = 0; d < 4; d++) {
+                int nRow = row + Grid.DROW[d], nCol = col + Grid.DCOL[d];
+                if (nRow < 0 || nRow >= rows || nCol < 0 || nCol >= cols) {
+                    continue;
+                }
+                int next = nRow * cols + nCol;
+                char entity = problem.cellAt(nRow, nCol);
+                if (entity != 'X' && field[next] != UNREACHABLE &&
+                    field[next] + MazeProblem.costOf(entity) == field[cell]) {
+                    path.add(d);
+                    cell = next;
+                    break;
+                }
+            }
+        }
+        return cell;
+    }
+    
+    /**
+     * Runs Dijkstra backwards from all of the sources at once: the distance of a
+     * cell is the least cost of moving from it to any source, where each move costs
+     * as much as the cell it enters.
+     */
+    private int[] reverseDijkstra (int[] sources, SolverStats stats) {
+        int[] dist = new int[rows * cols];
+        boolean[] graveyard = new boolean[rows * cols];
+        Arrays.fill(dist, UNREACHABLE);
+        BucketQueue frontier = new BucketQueue(problem.maxCost());
+        for (int source : sources) {
+            dist[source] = 0;
+            frontier.push(source, 0);
+        }
+        
+        while (!frontier.isEmpty()) {
+            int cell = frontier.pop();
+            if (graveyard[cell]) {
+                continue;
+            }
+            graveyard[cell] = true;
+            if (stats != null) {
+                stats.frontier(frontier.size() + 1);
+                stats.nodesExpanded++;
+            }
+            
+            // Every open neighbor can step into this cell at this cell's cost
+            int row = cell / cols, col = cell % cols,
+                through = dist[cell] + MazeProblem.costOf(problem.cellAt(row, col));
+            for (int d = 0; d < 4; d++) {
+                int nRow = row + Grid.DROW[d], nCol = col + Grid.DCOL[d];
+                if (nRow < 0 || nRow >= rows || nCol < 0 || nCol >= cols ||
+                    problem.cellAt(nRow, nCol) == 'X') {
+                    continue;
+                }
+                int prev = nRow * cols + nCol;
+                if (through < dist[prev]) {
+                    dist[prev] = through;
+                    frontier.push(prev, through);
+                }
+            }
+        }
+        return dist;
+    }
+    
+}
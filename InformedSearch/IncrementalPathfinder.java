@@ -0,0 +1,374 @@
+package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import pathfinder.search.Grid;
+
+/**
+ * Maze Pathfinding algorithm for mazes whose walls and mud change while the agent
+ * is moving, implementing D* Lite. Rather than searching again from scratch after
+ * every change, the previous search is repaired, so replanning after a local
+ * change only touches the cells whose distances that change affects.
+ * <p>
+ * The route from the agent to a goal must pass the key, so it is planned as two
+ * legs, each its own D* Lite search: agent to key, and key to the nearest goal.
+ * Once the agent has visited the key only the second leg remains, and it is
+ * planned from the agent instead.
+ */
+public class IncrementalPathfinder {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final MazeProblem problem;
+    private final int rows, cols;
+    private final Leg toKey, toGoal;
+    private int agent;
+    private boolean hasKey;
+
+    /**
+     * Constructs a new IncrementalPathfinder for the given maze, with the agent
+     * starting from the maze's initial state. No search is done until the first
+     * call to {@link #solve()}.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     */
+    public IncrementalPathfinder (MazeProblem problem) {
+        if ((long) problem.getRows() * problem.getCols() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large for incremental planning");
+        }
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.agent = id(problem.INITIAL_STATE);
+
+        int[] goals = new int[problem.GOAL_STATE.size()];
+        int g = 0;
+        for (MazeState goal : problem.GOAL_STATE.values()) {
+            goals[g++] = id(goal);
+        }
+        if (problem.KEY_STATE == null) {
+            hasKey = true;
+            toKey = null;
+            toGoal = new Leg(goals, agent);
+        } else {
+            int key = id(problem.KEY_STATE);
+            hasKey = (agent == key);
+            toKey = new Leg(new int[] {key}, agent);
+            toGoal = new Leg(goals, hasKey ? agent : key);
+        }
+    }
+
+    /**
+     * Returns a solution from the agent's current position, repairing the
+     * previous search to account for any cells changed or moves made since.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the
+     * agent's position, through the key, to a goal, of the format: ["R", "R", "L", ...],
+     * or null if no such route exists.
+     */
+    public ArrayList<String> solve () {
+        ArrayList<String> steps = new ArrayList<>();
+        if (!hasKey && !toKey.appendPath(steps)) {
+            return null;
+        }
+        return toGoal.appendPath(steps) ? steps : null;
+    }
+
+    /**
+     * [Mutator] Moves the agent to the given state as it follows the last solution;
+     * should be called for every cell entered, so that visiting the key is noticed.
+     *
+     * @param state The MazeState (col, row) that the agent now occupies
+     */
+    public void moveAgent (MazeState state) {
+        agent = id(state);
+        if (!hasKey && state.equals(problem.KEY_STATE)) {
+            hasKey = true;
+        }
+        if (hasKey) {
+            toGoal.moveStart(agent);
+        } else {
+            toKey.moveStart(agent);
+        }
+    }
+
+    /**
+     * [Mutator] Changes the terrain of a single cell in the underlying MazeProblem,
+     * and marks the cells whose distances may have changed as a result, so that
+     * the next call to {@link #solve()} repairs just that part of the search.
+     *
+     * @param state The MazeState (col, row) of the cell to change
+     * @param entity The new terrain: one of 'X', '.', 'M'
+     * @throws IllegalArgumentException If the cell cannot be changed, as in
+     * {@link MazeProblem#setCell}
+     */
+    public void setCell (MazeState state, char entity) {
+        problem.setCell(state, entity);
+        int cell = id(state);
+        if (toKey != null) {
+            toKey.cellChanged(cell);
+        }
+        toGoal.cellChanged(cell);
+    }
+
+
+    // Helper methods over int cell ids, row * cols + col
+    // -----------------------------------------------------------------------------
+
+    private int id (MazeState state) {
+        return state.row * cols + state.col;
+    }
+
+    private int cost (int cell) {
+        return MazeProblem.costOf(problem.cellAt(cell / cols, cell % cols));
+    }
+
+    private boolean isWall (int cell) {
+        return problem.cellAt(cell / cols, cell % cols) == 'X';
+    }
+
+    /**
+     * Returns the neighbor of cell in direction d, or -1 if it is off the map.
+     */
+    private int neighbor (int cell, int d) {
+        int row = cell / cols + Grid.DROW[d], col = cell % cols + Grid.DCOL[d];
+        return (row >= 0 && row < rows && col >= 0 && col < cols) ? row * cols + col : -1;
+    }
+
+    private int manhattan (int a, int b) {
+        return Grid.manhattan(a, b, cols);
+    }
+
+
+    /**
+     * A single D* Lite search, run backwards from a set of goal cells so that a
+     * moving start can reuse it.
+     */
+    private class Leg {
+
+        private final int[] g, rhs;
+        private final boolean[] isTarget;
+        private final IndexedHeap open;
+        private int start, km;
+
+        Leg (int[] targets, int start) {
+            int n = rows * cols;
+            g = new int[n];
+            rhs = new int[n];
+            Arrays.fill(g, INFINITY);
+            Arrays.fill(rhs, INFINITY);
+            isTarget = new boolean[n];
+            open = new IndexedHeap(n);
+            this.start = start;
+            for (int t : targets) {
+                isTarget[t] = true;
+                rhs[t] = 0;
+                open.put(t, key(t));
+            }
+        }
+
+        /**
+         * Priority of a cell: [min(g, rhs) + h(start, cell) + km; min(g, rhs)],
+         * packed into a long so that keys compare lexicographically.
+         */
+        private long key (int cell) {
+            long best = Math.min(g[cell], rhs[cell]);
+            return ((best + manhattan(start, cell) + km) << 32) | best;
+        }
+
+        void moveStart (int cell) {
+            km += manhattan(start, cell);
+            start = cell;
+        }
+
+        void cellChanged (int cell) {
+            updateVertex(cell);
+            for (int d = 0; d < 4; d++) {
+                int n = neighbor(cell, d);
+                if (n >= 0) {
+                    updateVertex(n);
+                }
+            }
+        }
+
+        private void updateVertex (int cell) {
+            if (!isTarget[cell]) {
+                int best = INFINITY;
+                if (!isWall(cell)) {
+                    for (int d = 0; d < 4; d++) {
+                        int n = neighbor(cell, d);
+                        if (n >= 0 && !isWall(n) && g[n] < INFINITY) {
+                            best = Math.min(best, cost(n) + g[n]);
+                        }
+                    }
+                }
+                rhs[cell] = best;
+            }
+            if (g[cell] != rhs[cell]) {
+                open.put(cell, key(cell));
+            } else {
+                open.remove(cell);
+            }
+        }
+
+        private void computeShortestPath () {
+            while (!open.isEmpty() &&
+                   (open.topKey() < key(start) || rhs[start] != g[start])) {
+                int u = open.top();
+                long oldKey = open.topKey(), newKey = key(u);
+                if (oldKey < newKey) {
+                    open.put(u, newKey);
+                } else if (g[u] > rhs[u]) {
+                    g[u] = rhs[u];
+                    open.remove(u);
+                    for (int d = 0; d < 4; d++) {
+                        int n = neighbor(u, d);
+                        if (n >= 0) {
+                            updateVertex(n);
+                        }
+                    }
+                } else {
+                    g[u] = INFINITY;
+                    updateVertex(u);
+                    for (int d = 0; d < 4; d++) {
+                        int n = neighbor(u, d);
+                        if (n >= 0) {
+                            updateVertex(n);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Repairs this leg's search and appends the actions leading from its
+         * start to a target onto steps.
+         * @return false if no target can be reached from the start
+         */
+        boolean appendPath (ArrayList<String> steps) {
+            computeShortestPath();
+            if (g[start] >= INFINITY) {
+                return false;
+            }
+            int cell = start;
+            while (!isTarget[cell]) {
+                int bestDir = -1, best = INFINITY;
+                for (int d = 0; d < 4; d++) {
+                    int n = neighbor(cell, d);
+                    if (n >= 0 && !isWall(n) && g[n] < INFINITY && cost(n) + g[n] < best) {
+                        best = cost(n) + g[n];
+                        bestDir = d;
+                    }
+                }
+                steps.add(Grid.ACTIONS[bestDir]);
+                cell = neighbor(cell, bestDir);
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Binary min-heap of int cells keyed by long priorities, which also tracks
+     * each cell's position so that its priority can be changed or it can be
+     * removed in O(log n).
+     */
+    private static class IndexedHeap {
+
+        private final int[] position;
+        private int[] cells = new int[64];
+        private long[] keys = new long[64];
+        private int size;
+
+        IndexedHeap (int capacity) {
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty () { return size == 0; }
+
+        int top () { return cells[0]; }
+
+        long topKey () { return keys[0]; }
+
+        /**
+         * Inserts the cell, or changes its key if it is already in the heap.
+         */
+        void put (int cell, long key) {
+            int i = position[cell];
+            if (i < 0) {
+                if (size == cells.length) {
+                    cells = Arrays.copyOf(cells, size * 2);
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                i = size++;
+                cells[i] = cell;
+                position[cell] = i;
+            }
+            long old = keys[i];
+            keys[i] = key;
+            if (i == size - 1 || key < old) {
+                siftUp(i);
+            } else {
+                siftDown(i);
+            }
+        }
+
+        void remove (int cell) {
+            int i = position[cell];
+            if (i < 0) {
+                return;
+            }
+            position[cell] = -1;
+            size--;
+            if (i < size) {
+                long key = keys[size];
+                move(size, i);
+                if (i > 0 && key < keys[(i - 1) / 2]) {
+                    siftUp(i);
+                } else {
+                    siftDown(i);
+                }
+            }
+        }
+
+        private void siftUp (int i) {
+            int cell = cells[i];
+            long key = keys[i];
+            while (i > 0 && key < keys[(i - 1) / 2]) {
+                move((i - 1) / 2, i);
+                i = (i - 1) / 2;
+            }
+            cells[i] = cell;
+            keys[i] = key;
+            position[cell] = i;
+        }
+
+        private void siftDown (int i) {
+            int cell = cells[i];
+            long key = keys[i];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            cells[i] = cell;
+            keys[i] = key;
+            position[cell] = i;
+        }
+
+        private void move (int from, int to) {
+            cells[to] = cells[from];
+            keys[to] = keys[from];
+            position[cells[to]] = to;
+        }
+    }
+
+}
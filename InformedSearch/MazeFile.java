@@ -0,0 +1,297 @@
+package pathfinder.informed;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes mazes in a compact binary format that can be memory-mapped,
+ * so that very large mazes need neither be parsed from text nor held on the heap.
+ * The format, with all ints big-endian, is laid out as:
+ * <pre>
+ * int  MAGIC, VERSION
+ * int  rows, cols
+ * int  initial (col, row), key (col, row)   -- (-1, -1) when absent
+ * int  goalCount
+ * byte cells[(rows * cols + 1) / 2]         -- 4-bit cell codes, row-major, low nibble first
+ * int  goals (col, row) * goalCount
+ * </pre>
+ */
+public class MazeFile {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    static final int MAGIC = 0x4D415A45, // "MAZE"
+                     VERSION = 1,
+                     HEADER_BYTES = 9 * Integer.BYTES;
+
+    /**
+     * Maze entities indexed by their 4-bit cell code
+     */
+    private static final char[] ENTITIES = {'.', 'X', 'M', 'K', 'G', 'I'};
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Memory-maps the given binary maze file read-only and returns a MazeProblem
+     * that reads its cells directly from the mapping. The OS page cache backing
+     * the mapping is shared by every process that loads the same file.
+     *
+     * @param file Path to a maze written by {@link #write} or {@link #convert}
+     * @return MazeProblem backed by the mapped file
+     * @throws IOException If the file cannot be read or is not a valid maze file
+     */
+    public static MazeProblem load (Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Maze file too large to map: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a maze file: " + file);
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported maze file version " + mapped.getInt(4));
+        }
+        int rows = mapped.getInt(8), cols = mapped.getInt(12),
+            goalCount = mapped.getInt(32);
+        long cellBytes = cellBytes(rows, cols);
+        if (rows < 0 || cols < 0 || goalCount < 0 ||
+            HEADER_BYTES + cellBytes + 8L * goalCount != mapped.limit()) {
+            throw new IOException("Maze file is truncated or corrupt: " + file);
+        }
+
+        MazeState initial = readState(mapped, 16), key = readState(mapped, 24);
+        if (!inside(initial, rows, cols) || (key != null && !inside(key, rows, cols))) {
+            throw new IOException("Maze file has no valid initial or key state: " + file);
+        }
+        Map<Integer, MazeState> goals = new HashMap<>();
+        int goalsAt = HEADER_BYTES + (int) cellBytes;
+        for (int i = 0; i < goalCount; i++) {
+            MazeState goal = readState(mapped, goalsAt + 8 * i);
+            if (!inside(goal, rows, cols)) {
+                throw new IOException("Maze file has a goal outside of the maze: " + file);
+            }
+            goals.put(i, goal);
+        }
+
+        // Every cell code must name an entity, as it is read back on every access
+        ByteBuffer cells = mapped.slice(HEADER_BYTES, (int) cellBytes);
+        for (int i = 0; i < cellBytes; i++) {
+            int packed = cells.get(i);
+            if ((packed & 0xF) >= ENTITIES.length || ((packed >>> 4) & 0xF) >= ENTITIES.length) {
+                throw new IOException("Maze file has an invalid cell code at byte " + (HEADER_BYTES + i) + ": " + file);
+            }
+        }
+        return new MazeProblem(cells, rows, cols, initial, key, goals);
+    }
+
+    /**
+     * Writes the given text maze to a binary maze file.
+     *
+     * @param maze An array of Strings in the format accepted by MazeProblem
+     * @param file Destination of the binary maze
+     * @throws IOException If the file cannot be written
+     */
+    public static void write (String[] maze, Path file) throws IOException {
+        try (MazeWriter writer = new MazeWriter(file)) {
+            for (String row : maze) {
+                writer.writeRow(row);
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Converts a text maze, with one row per line, to a binary maze file. The text
+     * is streamed a line at a time, so the maze is never held in memory as a whole.
+     *
+     * @param textFile Source maze, one row of entities per line
+     * @param binaryFile Destination of the binary maze
+     * @throws IOException If either file cannot be accessed
+     */
+    public static void convert (Path textFile, Path binaryFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.US_ASCII);
+             MazeWriter writer = new MazeWriter(binaryFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    writer.writeRow(line);
+                }
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Returns the maze entity for the given 4-bit cell code.
+     */
+    static char entity (int code) {
+        return ENTITIES[code];
+    }
+
+    /**
+     * Returns the 4-bit cell code for the given maze entity.
+     * @throws IllegalArgumentException If the entity is not a legal maze entity
+     */
+    static int code (char entity) {
+        switch (entity) {
+        case '.': return 0;
+        case 'X': return 1;
+        case 'M': return 2;
+        case 'K': return 3;
+        case 'G': return 4;
+        case 'I': return 5;
+        default:
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
+    }
+
+    private static long cellBytes (int rows, int cols) {
+        return ((long) rows * cols + 1) / 2;
+    }
+
+    private static boolean inside (MazeState state, int rows, int cols) {
+        return state != null && state.row >= 0 && state.row < rows && state.col >= 0 && state.col < cols;
+    }
+
+    private static MazeState readState (ByteBuffer buffer, int offset) {
+        int col = buffer.getInt(offset), row = buffer.getInt(offset + 4);
+        return (col < 0) ? null : new MazeState(col, row);
+    }
+
+    /**
+     * Streams rows of a text maze into packed cell codes, recording the initial,
+     * key and goal positions along the way; the header and goal table are
+     * written by finish, once every row has been seen. A writer closed without
+     * finishing, as when a row is invalid, deletes its file rather than leave a
+     * truncated maze that would load as a valid one.
+     */
+    private static class MazeWriter implements AutoCloseable {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final IntList goals = new IntList();
+        private int rows, cols = -1,
+                    initialCol = -1, initialRow = -1,
+                    keyCol = -1, keyRow = -1,
+                    pending = -1;
+        private boolean finished;
+
+        MazeWriter (Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+            out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+        }
+
+        void writeRow (String row) throws IOException {
+            if (cols < 0) {
+                cols = row.length();
+            } else if (row.length() != cols) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+            for (int col = 0; col < cols; col++) {
+                int code = code(row.charAt(col));
+                switch (row.charAt(col)) {
+                case 'I': initialCol = col; initialRow = rows; break;
+                case 'K': keyCol = col; keyRow = rows; break;
+                case 'G': goals.add(col); goals.add(rows); break;
+                }
+                if (pending < 0) {
+                    pending = code;
+                } else {
+                    out.write(pending | (code << 4));
+                    pending = -1;
+                }
+            }
+            rows++;
+        }
+
+        /**
+         * [Mutator] Writes the goal table and header, completing the file; called
+         * once every row has been written.
+         * @throws IllegalArgumentException If no row held the initial state
+         */
+        void finish () throws IOException {
+            if (initialCol < 0) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+            if (pending >= 0) {
+                out.write(pending);
+            }
+            for (int i = 0; i < goals.size(); i++) {
+                writeInt(goals.get(i));
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION)
+                  .putInt(rows).putInt(Math.max(cols, 0))
+                  .putInt(initialCol).putInt(initialRow)
+                  .putInt(keyCol).putInt(keyRow)
+                  .putInt(goals.size() / 2)
+                  .flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            finished = true;
+        }
+
+        @Override
+        public void close () throws IOException {
+            channel.close();
+            if (!finished) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        private void writeInt (int value) throws IOException {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        }
+    }
+
+    /**
+     * Minimal growable list of ints, used to buffer goal positions while streaming.
+     */
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add (int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get (int index) { return values[index]; }
+
+        int size () { return size; }
+    }
+
+}
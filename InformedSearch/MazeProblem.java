@@ -1,24 +1,39 @@
 package pathfinder.informed;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import pathfinder.search.ActionPath;
+import pathfinder.search.Grid;
+import pathfinder.search.SearchProblem;
+
 /**
  * Specifies the Maze Grid pathfinding problem including the actions, transitions,
  * goal test, and solution test. Can be fed as an input to a Search algorithm to,
  * find and then test a solution.
+ * <p>
+ * As a {@link SearchProblem}, each state is a cell together with whether the key
+ * has been visited on the way there, encoded as (row * cols + col) * 2 + hasKey.
  */
-public class MazeProblem {
+public class MazeProblem implements SearchProblem {
 
     // Fields
     // -----------------------------------------------------------------------------
     private String[] maze;
+    private ByteBuffer cells;
+    private long[] editedCells;
+    private char[] editedEntities;
+    private int editCount;
     private int rows, cols;
     public final MazeState INITIAL_STATE, KEY_STATE;
     public final Map <Integer, MazeState> GOAL_STATE;
     private static final Map<String, MazeState> TRANS_MAP = createTransitions();
     public boolean visitedKey = false;
+    private static final int MAX_COST = 3;
+    private int[] goalCells;
+    private int keyCell, keyToGoal;
     
     
     /**
@@ -90,12 +105,162 @@ public class MazeProblem {
         INITIAL_STATE = foundInitial;
         KEY_STATE = foundKey;
         GOAL_STATE = foundGoal;
+        indexStates();
+    }
+    
+    /**
+     * Constructs a new MazeProblem backed by packed cell codes rather than
+     * Strings, as produced by {@link MazeFile#load}. The cells are read in
+     * place, so a memory-mapped buffer is never copied onto the heap.
+     * 
+     * @param cells Buffer of 4-bit cell codes, two per byte, row-major, low nibble first
+     * @param rows Number of rows in the maze
+     * @param cols Number of columns in the maze
+     * @param initial The initial state, as recorded in the maze header
+     * @param key The key state, as recorded in the maze header
+     * @param goals The goal states, as recorded in the maze header
+     */
+    MazeProblem (ByteBuffer cells, int rows, int cols, MazeState initial, MazeState key, Map<Integer, MazeState> goals) {
+        this.cells = cells;
+        this.rows = rows;
+        this.cols = cols;
+        INITIAL_STATE = initial;
+        KEY_STATE = key;
+        GOAL_STATE = goals;
+        indexStates();
+    }
+    
+    /**
+     * Records the key and goal cells as int cell ids for the heuristic.
+     */
+    private void indexStates () {
+        goalCells = new int[GOAL_STATE.size()];
+        int g = 0;
+        for (MazeState goal : GOAL_STATE.values()) {
+            goalCells[g++] = goal.row * cols + goal.col;
+        }
+        keyCell = (KEY_STATE == null) ? -1 : KEY_STATE.row * cols + KEY_STATE.col;
+        keyToGoal = (keyCell < 0) ? 0 : nearestGoal(keyCell);
     }
     
     
     // Methods
     // -----------------------------------------------------------------------------
     
+    /**
+     * Returns the maze entity at the given position, regardless of whether this
+     * maze is backed by Strings or by packed cell codes.
+     * 
+     * @param row Row of the cell to read
+     * @param col Column of the cell to read
+     * @return char One of the maze entities 'X', '.', 'M', 'K', 'G', 'I'
+     */
+    char cellAt (int row, int col) {
+        long index = (long) row * cols + col;
+        if (editedCells != null) {
+            int slot = editSlot(index);
+            if (editedCells[slot] != 0) {
+                return editedEntities[slot];
+            }
+        }
+        if (cells == null) {
+            return maze[row].charAt(col);
+        }
+        int packed = cells.get((int) (index >>> 1));
+        return MazeFile.entity((index & 1) == 0 ? packed & 0xF : (packed >>> 4) & 0xF);
+    }
+    
+    /**
+     * @return The number of rows in this maze
+     */
+    public int getRows () {
+        return rows;
+    }
+    
+    /**
+     * @return The number of columns in this maze
+     */
+    public int getCols () {
+        return cols;
+    }
+    
+    /**
+     * [Mutator] Changes the terrain of a single cell, e.g., to raise or clear a
+     * wall or to lay down mud while agents are moving through the maze. Edits are
+     * kept alongside the original maze, which may be a read-only mapping, and
+     * are visible to every method of this MazeProblem.
+     * 
+     * @param state The MazeState (col, row) of the cell to change
+     * @param entity The new terrain: one of 'X', '.', 'M'
+     * @throws IllegalArgumentException If the entity is not a terrain type, or the
+     * cell lies outside the maze or holds the initial, key or a goal state
+     */
+    public void setCell (MazeState state, char entity) {
+        if (entity != 'X' && entity != '.' && entity != 'M') {
+            throw new IllegalArgumentException("Only 'X', '.' and 'M' cells can be changed");
+        }
+        if (state.row < 0 || state.row >= rows || state.col < 0 || state.col >= cols) {
+            throw new IllegalArgumentException(state + " lies outside of the maze");
+        }
+        switch (cellAt(state.row, state.col)) {
+        case 'I':
+        case 'K':
+        case 'G':
+            throw new IllegalArgumentException("Cannot change the terrain of " + state);
+        }
+        if (editedCells == null) {
+            editedCells = new long[16];
+            editedEntities = new char[16];
+        }
+        long index = (long) state.row * cols + state.col;
+        int slot = editSlot(index);
+        if (editedCells[slot] == 0) {
+            if (2 * (editCount + 1) > editedCells.length) {
+                growEdits();
+                slot = editSlot(index);
+            }
+            editedCells[slot] = index + 1;
+            editCount++;
+        }
+        editedEntities[slot] = entity;
+    }
+    
+    /**
+     * Finds the slot of the open-addressed edit table that holds the given cell,
+     * or the free slot where it would go. Slots hold the cell index plus one, so
+     * that 0 marks a free slot, and keeping the table at most half full keeps
+     * probes short without boxing a key on every read.
+     * 
+     * @param index Index (row * cols + col) of the cell to look up
+     * @return The slot holding the cell, or the free slot ending its probe
+     */
+    private int editSlot (long index) {
+        int mask = editedCells.length - 1;
+        long h = (index + 1) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (editedCells[slot] != 0 && editedCells[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * [Mutator] Doubles the edit table, re-inserting every edit made so far.
+     */
+    private void growEdits () {
+        long[] oldCells = editedCells;
+        char[] oldEntities = editedEntities;
+        editedCells = new long[oldCells.length * 2];
+        editedEntities = new char[oldCells.length * 2];
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != 0) {
+                int slot = editSlot(oldCells[i] - 1);
+                editedCells[slot] = oldCells[i];
+                editedEntities[slot] = oldEntities[i];
+            }
+        }
+    }
+    
     /**
      * Returns whether or not the given state is a Goal state.
      * 
@@ -123,9 +288,19 @@ public class MazeProblem {
      */    
     
     public int getCost(MazeState state) {
+        return costOf(cellAt(state.row, state.col));
+    }
+    
+    /**
+     * Returns the cost of moving onto a cell holding the given maze entity.
+     * 
+     * @param entity One of the maze entities 'X', '.', 'M', 'K', 'G', 'I'
+     * @return int of cost, or 0 for a wall, which can never be entered.
+     */
+    static int costOf(char entity) {
        	int cost = 0;
        	
-    	switch (maze[state.row].charAt(state.col)) {
+    	switch (entity) {
                 case '.':
                     cost = 1; break;
                 case 'M':
@@ -134,6 +309,8 @@ public class MazeProblem {
                     cost = 1; break;
                 case 'K':
                     cost = 1; break;                    
+                case 'I':
+                    cost = 1; break;
                 
         }   
         return cost;
@@ -166,7 +343,7 @@ public class MazeProblem {
             // map bounds and no wall at the position)...
             if (newState.row >= 0 && newState.row < rows &&
                 newState.col >= 0 && newState.col < cols &&
-                maze[newState.row].charAt(newState.col) != 'X') {
+                cellAt(newState.row, newState.col) != 'X') {
                 // ...then add it to the result!
                 result.put(action.getKey(), newState);
                 
@@ -176,6 +353,94 @@ public class MazeProblem {
     }
        
     
+    // SearchProblem
+    // -----------------------------------------------------------------------------
+    
+    @Override
+    public int stateCount () {
+        if ((long) rows * cols * 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large to search");
+        }
+        return rows * cols * 2;
+    }
+    
+    @Override
+    public int initialState () {
+        int start = INITIAL_STATE.row * cols + INITIAL_STATE.col;
+        return start * 2 + ((keyCell < 0 || start == keyCell) ? 1 : 0);
+    }
+    
+    @Override
+    public boolean isGoal (int state) {
+        int cell = state >> 1;
+        return (state & 1) == 1 && cellAt(cell / cols, cell % cols) == 'G';
+    }
+    
+    @Override
+    public int successors (int state, int[] successors) {
+        int cell = state >> 1, row = cell / cols, col = cell % cols,
+            hasKey = state & 1, count = 0;
+        for (int d = 0; d < 4; d++) {
+            int nRow = row + Grid.DROW[d], nCol = col + Grid.DCOL[d];
+            if (nRow >= 0 && nRow < rows && nCol >= 0 && nCol < cols &&
+                cellAt(nRow, nCol) != 'X') {
+                int nCell = nRow * cols + nCol;
+                successors[count++] = nCell * 2 + ((nCell == keyCell) ? 1 : hasKey);
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int maxSuccessors () {
+        return 4;
+    }
+    
+    @Override
+    public int action (int from, int to) {
+        return Grid.direction(from >> 1, to >> 1, cols);
+    }
+    
+    @Override
+    public String[] actionNames () {
+        return Grid.ACTIONS;
+    }
+    
+    @Override
+    public int cost (int from, int to) {
+        int cell = to >> 1;
+        return costOf(cellAt(cell / cols, cell % cols));
+    }
+    
+    /**
+     * Manhattan distance heuristic: before the key, the distance to the key plus
+     * the key's distance to the nearest goal, and after it, the distance to the
+     * nearest goal.
+     */
+    @Override
+    public int heuristic (int state) {
+        int cell = state >> 1;
+        return ((state & 1) == 1) ? nearestGoal(cell) : Grid.manhattan(cell, keyCell, cols) + keyToGoal;
+    }
+    
+    @Override
+    public int maxCost () {
+        return MAX_COST;
+    }
+    
+    @Override
+    public int maxHeuristicIncrease () {
+        return 1;
+    }
+    
+    private int nearestGoal (int cell) {
+        int min = Integer.MAX_VALUE;
+        for (int goal : goalCells) {
+            min = Math.min(min, Grid.manhattan(cell, goal, cols));
+        }
+        return min;
+    }
+    
     /**
      * Given a possibleSoln, tests to ensure that it is indeed a solution to this MazeProblem,
      * as well as returning the cost.
@@ -195,7 +460,8 @@ public class MazeProblem {
         // Update the "moving state" that begins at the start and is modified by the transitions
         MazeState movingState = new MazeState(INITIAL_STATE.col, INITIAL_STATE.row);
         int cost = 0;
-        boolean hasKey = false;
+        // A maze with no key is solved without visiting one
+        boolean hasKey = KEY_STATE == null;
         int[] result = {0, -1};
         
         // For each action, modify the movingState, and then check that we have landed in
@@ -203,7 +469,7 @@ public class MazeProblem {
         for (String action : possibleSoln) {
             MazeState actionMod = TRANS_MAP.get(action);
             movingState.add(actionMod);
-            switch (maze[movingState.row].charAt(movingState.col)) {
+            switch (cellAt(movingState.row, movingState.col)) {
             case 'X':
                 return result;
             case 'K':
@@ -211,11 +477,43 @@ public class MazeProblem {
             }
             cost += getCost(movingState);
         }
-        result[0] = isGoal(movingState) && hasKey ? 1 : 0;
+        result[0] = hasKey && GOAL_STATE.containsValue(movingState) ? 1 : 0;
         result[1] = cost;
-        if (result[0] ==1) {
-        System.out.println(possibleSoln);
+        return result;
+    }
+    
+    /**
+     * Tests a possibleSoln as {@link #testSolution(ArrayList)} does, but works on the
+     * compact ActionPath directly, with no per-step String or Map lookups.
+     * 
+     * @param possibleSoln A possible solution to test, with action codes indexing Grid.ACTIONS
+     * @return A 2-element array of ints of the format [isSoln, cost]
+     */
+    public int[] testSolution (ActionPath possibleSoln) {
+        if (possibleSoln == null) {
+            return null;
         }
+        int row = INITIAL_STATE.row, col = INITIAL_STATE.col, cost = 0;
+        boolean hasKey = KEY_STATE == null;
+        int[] result = {0, -1};
+        for (int i = 0; i < possibleSoln.size(); i++) {
+            int d = possibleSoln.code(i);
+            row += Grid.DROW[d];
+            col += Grid.DCOL[d];
+            if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                return result;
+            }
+            char entity = cellAt(row, col);
+            switch (entity) {
+            case 'X':
+                return result;
+            case 'K':
+                hasKey = true; break;
+            }
+            cost += costOf(entity);
+        }
+        result[0] = hasKey && cellAt(row, col) == 'G' ? 1 : 0;
+        result[1] = cost;
         return result;
     }
     
@@ -1,161 +1,80 @@
 package pathfinder.informed;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
+
+import metrics.SolverStats;
+import pathfinder.search.ActionPath;
+import pathfinder.search.AnytimeSearch;
+import pathfinder.search.GraphSearch;
 
 
 /**
- * Maze Pathfinding algorithm that implements a basic, uninformed, breadth-first tree search.
+ * Maze Pathfinding algorithm that implements an informed, A* graph search, in which
+ * each state is a maze cell together with whether the key has been visited on the
+ * way there.
  */
 public class Pathfinder {
-    
+
     /**
      * Given a MazeProblem, which specifies the actions and transitions available in the
      * search, returns a solution to the problem as a sequence of actions that leads from
      * the initial to a goal state.
-     * 
+     *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
      * @return An ArrayList of Strings representing actions that lead from the initial to
      * the goal state, of the format: ["R", "R", "L", ...]
      */
     public static ArrayList<String> solve (MazeProblem problem) {
-        // TODO: Initialize frontier -- what data structure should you use here for
-        // breadth-first search? Recall: The frontier holds SearchTreeNodes!
-        PriorityQueue<SearchTreeNode> frontier = new PriorityQueue <SearchTreeNode>();
-        Set <MazeState> graveyard = new HashSet<>();       
-                
-        // TODO: Add new SearchTreeNode representing the problem's initial state to the
-        // frontier. Since this is the initial state, the node's action and parent will
-        // be null
-        SearchTreeNode root = new SearchTreeNode(problem.INITIAL_STATE, null, null, 0);
-        frontier.add(root);
-        
-        // TODO: Loop: as long as the frontier is not empty...
-        while (frontier.isEmpty() == false) {
-           
-        	// TODO: Get the next node to expand by the ordering of breadth-first search
-            SearchTreeNode curr = frontier.remove();
-            graveyard.add(curr.state);        	
-            // TODO: If that node's state is the goal and the path has already visited the key (see problem's isGoal method),
-            // you're done! Return the solution
-            // [Hint] Use a helper method to collect the solution from the current node!
-            if (problem.isGoal(curr.state)) {         	
-              	ArrayList <String> sol = retrace(curr);
-            	int [] test = problem.testSolution(sol);
-            	if (test[0] == 1) {
-            		return sol;
-            	}
-            }
-            
-            // TODO: Otherwise, must generate children to keep searching. So, use the
-            // problem's getTransitions method from the currently expanded node's state...
-            Map<String, MazeState> moves = problem.getTransitions(curr.state);
-            
-            // TODO: ...and *for each* of those transition states...
-            // [Hint] Look up how to iterate through <key, value> pairs in a Map -- an
-            // example of this is already done in the MazeProblem's getTransitions method
-            for (Map.Entry<String, MazeState> options : moves.entrySet()) {          	
-        
-            	// TODO: ...add a new SearchTreeNode to the frontier in the correct location based off of calculated heuristic score with the appropriate
-                // action, state, parent, and fScore
-            	int costOfMove = problem.getCost(options.getValue());
-            	SearchTreeNode temp = new SearchTreeNode(options.getValue(), options.getKey(), curr, costOfMove);
-            	
-
-             	if (problem.visitedKey) {
-                	int minManhattanScore= 0;            		
-            		for (MazeState goal : problem.GOAL_STATE.values()) {
-            			if (manhattan(temp, goal) < minManhattanScore) {
-            				minManhattanScore = manhattan(temp, goal);
-            			}
-            		}
-            	temp.manhattanScore = minManhattanScore;
-            	}
-            	else temp.manhattanScore = manhattan(temp, problem.KEY_STATE);
-            	
-             	if (graveyard.contains(temp.state)==false) {
-             		frontier.add(temp);             		
-            	}
-             	else if (problem.visitedKey) {
-             		frontier.add(temp);
-             	}
-            }
-        }
-        // If the frontier is empty, all nodes have been expanded with no solution found
-        return null;
-}
-    
-//Helper method designed to calculate Manhattan Distance Heuristic
-//Method takes in a nodes current location and goal and calculates distance between
-public static int manhattan(SearchTreeNode curr, MazeState currentGoal) {
-	
-	int dx = Math.abs(curr.state.row - currentGoal.row);
-	int dy = Math.abs(curr.state.col - currentGoal.row);
-	
-	return (dx+dy);
-}
-    
-    
-// Helper method designed to obtain path to solution
-// Method begins at GOAL_STATE and works through parent nodes to obtain actions    
-public static ArrayList<String> retrace(SearchTreeNode end) {
-	
-	ArrayList <String> steps = new ArrayList <String>();
-	SearchTreeNode curr = end;
-	
-	while (curr.parent!= null) {
-		steps.add(0, curr.action);
-		curr = curr.parent;	
-	}
-	
-	return steps;
+        return solve(problem, null);
+    }
 
-}
-    
-}    
+    /**
+     * Solves the given MazeProblem as {@link #solve(MazeProblem)} does, counting
+     * nodes expanded and peak frontier size into the given stats.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param stats Stats to count into, or null
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...]
+     */
+    public static ArrayList<String> solve (MazeProblem problem, SolverStats stats) {
+        ActionPath path = findPath(problem, stats);
+        return (path == null) ? null : new ArrayList<>(path.asList());
+    }
 
-/**
- * SearchTreeNode that is used in the Search algorithm to construct the Search
- * tree.
- */
-class SearchTreeNode implements Comparable<SearchTreeNode>{
-    
-    MazeState state;
-    String action;
-    SearchTreeNode parent;
-    int historyScore;
-    int manhattanScore;
-    int fScore;
-    
     /**
-     * Constructs a new SearchTreeNode to be used in the Search Tree.
-     * 
-     * @param state The MazeState (col, row) that this node represents.
-     * @param action The action that *led to* this state / node.
-     * @param parent Reference to parent SearchTreeNode in the Search Tree.
+     * Solves the given MazeProblem, returning the solution in compact form, which
+     * avoids a String per step on long paths.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param stats Stats to count into, or null
+     * @return An ActionPath leading from the initial state, through the key, to a
+     * goal state, or null if no goal can be reached
      */
-    SearchTreeNode (MazeState state, String action, SearchTreeNode parent, int costOfMove) {
-        this.state = state;
-        this.action = action;
-        this.parent = parent;
-        if (this.parent !=null) {
-        	this.historyScore = parent.historyScore + costOfMove;
+    public static ActionPath findPath (MazeProblem problem, SolverStats stats) {
+        if (problem.GOAL_STATE.isEmpty()) {
+            return null;
         }
-        	this.manhattanScore = 0;
-        this.fScore = this.historyScore + this.manhattanScore;
-    }
-   
-    public int compareTo(SearchTreeNode a) {
-    	return this.fScore - a.fScore;
+        return GraphSearch.aStar(problem, stats);
     }
-    
-    public boolean compare(SearchTreeNode a) {
-    	
-    	return true;
+
+    /**
+     * Solves the given MazeProblem within a time budget: a first solution is found
+     * quickly by inflating the heuristic, then improved by lowering the inflation
+     * for as long as the budget allows.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param initialWeight Weight on the heuristic for the first solution, at least 1
+     * @param budgetNanos Time allowed for searching, in nanoseconds
+     * @param stats Stats to count into, or null
+     * @return The best solution found, with its cost and suboptimality bound, or
+     * null if no goal can be reached
+     */
+    public static AnytimeSearch.Result solveAnytime (MazeProblem problem, double initialWeight, long budgetNanos, SolverStats stats) {
+        if (problem.GOAL_STATE.isEmpty()) {
+            return null;
+        }
+        return AnytimeSearch.search(problem, initialWeight, budgetNanos, stats);
     }
-    
-}
 
+}
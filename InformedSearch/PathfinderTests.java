@@ -0,0 +1,363 @@
+package pathfinder.informed;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.search.ActionPath;
+import pathfinder.search.AnytimeSearch;
+import pathfinder.search.GraphSearch;
+import pathfinder.search.Grid;
+import pathfinder.search.SearchProblem;
+
+/**
+ * Unit tests for the informed Maze Pathfinder. Tests include completeness and
+ * optimality, with and without a key to visit.
+ */
+public class PathfinderTests {
+
+    @Test
+    public void testPathfinder_key() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XXX.X",
+            "XK...GX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob);
+
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]); // Test that result is a solution
+        assertEquals(7, result[1]); // Ensure that the solution is optimal
+    }
+
+    @Test
+    public void testPathfinder_noKey() {
+        String[] maze = {
+            "XXXXXX",
+            "XI..GX",
+            "X.XX.X",
+            "XXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ActionPath path = Pathfinder.findPath(prob, null);
+
+        // With no key to visit, the goal alone must be reached
+        assertEquals(1, prob.testSolution(new ArrayList<>(path.asList()))[0]);
+        assertEquals(1, prob.testSolution(path)[0]);
+        assertEquals(3, prob.testSolution(path)[1]);
+    }
+
+    @Test
+    public void testPathfinder_setCellOutside() {
+        String[] maze = {
+            "I..",
+            "...",
+            "..G"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        // Column 3 of row 0 would alias cell (0, 1) of a packed maze
+        for (MazeState outside : new MazeState[] {new MazeState(3, 0), new MazeState(0, -1), new MazeState(-1, 2)}) {
+            try {
+                prob.setCell(outside, 'X');
+                fail("Accepted " + outside);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        assertEquals('.', prob.cellAt(1, 0));
+    }
+
+    @Test
+    public void testMazeFile_roundTrip() throws IOException {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI..M...X",
+            "X.XX.XX.X",
+            "X.MM.K..X",
+            "XX.X.XXGX",
+            "XXXXXXXXX"
+        };
+        MazeProblem text = new MazeProblem(maze);
+        Path dir = Files.createTempDirectory("mazes"),
+             written = dir.resolve("written.maze"),
+             source = dir.resolve("maze.txt"),
+             converted = dir.resolve("converted.maze");
+        try {
+            MazeFile.write(maze, written);
+            Files.write(source, Arrays.asList(maze), StandardCharsets.US_ASCII);
+            MazeFile.convert(source, converted);
+            int cost = text.testSolution(Pathfinder.solve(text))[1];
+            for (Path file : new Path[] {written, converted}) {
+                MazeProblem loaded = MazeFile.load(file);
+                assertEquals(text.getRows(), loaded.getRows());
+                assertEquals(text.getCols(), loaded.getCols());
+                for (int row = 0; row < text.getRows(); row++) {
+                    for (int col = 0; col < text.getCols(); col++) {
+                        assertEquals(text.cellAt(row, col), loaded.cellAt(row, col));
+                    }
+                }
+                int[] result = loaded.testSolution(Pathfinder.solve(loaded));
+                assertEquals(1, result[0]);
+                assertEquals(cost, result[1]);
+            }
+
+            // A ragged row leaves no file behind, rather than a maze that loads
+            Path ragged = dir.resolve("ragged.maze");
+            try {
+                MazeFile.write(new String[] {"XXXX", "XIG", "XXXX"}, ragged);
+                fail("Wrote a ragged maze");
+            } catch (IllegalArgumentException e) {
+                assertFalse(Files.exists(ragged));
+            }
+        } finally {
+            for (Path file : new Path[] {written, source, converted}) {
+                Files.deleteIfExists(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testMazeFile_corrupt() throws IOException {
+        Path file = Files.createTempFile("corrupt", ".maze");
+        try {
+            // A cell code past the last entity
+            MazeFile.write(new String[] {"I.G"}, file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xF0}), MazeFile.HEADER_BYTES);
+            }
+            assertLoadFails(file);
+
+            // No initial state, as (-1, -1)
+            MazeFile.write(new String[] {"I.G"}, file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(8).putInt(-1).putInt(-1).flip(), 16);
+            }
+            assertLoadFails(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertLoadFails (Path file) {
+        try {
+            MazeFile.load(file);
+            fail("Loaded a corrupt maze file");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testIncremental_replan() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XI.......X",
+            "X.XXXX.X.X",
+            "X...K..X.X",
+            "X.XX.XXX.X",
+            "X......MGX",
+            "XXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        IncrementalPathfinder planner = new IncrementalPathfinder(prob);
+        ArrayList<String> solution = planner.solve();
+        assertEquals(prob.testSolution(Pathfinder.solve(prob))[1], prob.testSolution(solution)[1]);
+
+        // Alternately wall off and lay mud on an open cell of the current route,
+        // each replanned route matching a fresh search of the edited maze
+        for (int edit = 0; solution != null; edit++) {
+            MazeState onRoute = null;
+            int row = prob.INITIAL_STATE.row, col = prob.INITIAL_STATE.col;
+            for (String action : solution) {
+                int d = Arrays.asList(Grid.ACTIONS).indexOf(action);
+                row += Grid.DROW[d];
+                col += Grid.DCOL[d];
+                if (prob.cellAt(row, col) == '.') {
+                    onRoute = new MazeState(col, row);
+                    break;
+                }
+            }
+            assertNotNull(onRoute);
+            planner.setCell(onRoute, (edit % 3 == 2) ? 'M' : 'X');
+            solution = planner.solve();
+            ArrayList<String> fresh = Pathfinder.solve(prob);
+            if (solution == null) {
+                assertNull(fresh);
+            } else {
+                int[] result = prob.testSolution(solution);
+                assertEquals(1, result[0]);
+                assertEquals(prob.testSolution(fresh)[1], result[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testAnytime_bound() {
+        Random random = new Random(32);
+        for (int t = 0; t < 30; t++) {
+            MazeProblem prob = new MazeProblem(randomMaze(random, 12 + random.nextInt(20), 12 + random.nextInt(20)));
+            ArrayList<String> optimal = Pathfinder.solve(prob);
+            if (optimal == null) {
+                assertNull(Pathfinder.solveAnytime(prob, 3.0, Long.MAX_VALUE, null));
+                continue;
+            }
+            int best = prob.testSolution(optimal)[1];
+
+            // Out of time after the first search, the bound must still hold
+            AnytimeSearch.Result first = Pathfinder.solveAnytime(prob, 3.0, 0, null);
+            assertEquals(1, prob.testSolution(first.path)[0]);
+            assertEquals(first.cost, prob.testSolution(first.path)[1]);
+            assertTrue(first.bound <= 3.0);
+            assertTrue(first.cost <= first.bound * best + 1e-9);
+
+            // With time to spare, the search runs down to the optimal cost
+            AnytimeSearch.Result unlimited = Pathfinder.solveAnytime(prob, 3.0, Long.MAX_VALUE, null);
+            assertEquals(1.0, unlimited.bound, 0);
+            assertEquals(best, unlimited.cost);
+            assertEquals(best, prob.testSolution(unlimited.path)[1]);
+        }
+    }
+
+    /**
+     * Returns a walled maze of the given size with random walls and mud, and an
+     * initial state, key and goal at random open cells.
+     */
+    private static String[] randomMaze (Random random, int rows, int cols) {
+        char[][] cells = new char[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                boolean border = row == 0 || col == 0 || row == rows - 1 || col == cols - 1;
+                double roll = random.nextDouble();
+                cells[row][col] = (border || roll < 0.25) ? 'X' : (roll < 0.4) ? 'M' : '.';
+            }
+        }
+        for (char entity : new char[] {'I', 'K', 'G'}) {
+            int row, col;
+            do {
+                row = 1 + random.nextInt(rows - 2);
+                col = 1 + random.nextInt(cols - 2);
+            } while (cells[row][col] == 'I' || cells[row][col] == 'K' || cells[row][col] == 'G');
+            cells[row][col] = entity;
+        }
+        String[] maze = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            maze[row] = new String(cells[row]);
+        }
+        return maze;
+    }
+
+    @Test
+    public void testDistanceFields_routes() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XI...M...X",
+            "X.XX.XXM.X",
+            "X..K.X.X.X",
+            "XXX.MX...X",
+            "X.X...XX.X",
+            "XXX.M...GX",
+            "XXXXXXXXXX"
+        };
+        DistanceFields fields = DistanceFields.compute(new MazeProblem(maze), null);
+        List<MazeState> starts = new ArrayList<>();
+        for (int row = 0; row < maze.length; row++) {
+            for (int col = 0; col < maze[row].length(); col++) {
+                if (maze[row].charAt(col) == '.') {
+                    starts.add(new MazeState(col, row));
+                }
+            }
+        }
+        List<ActionPath> routes = fields.routes(starts);
+        for (int i = 0; i < starts.size(); i++) {
+            // The same maze, searched by A* from this start instead
+            MazeState start = starts.get(i);
+            String[] moved = maze.clone();
+            moved[1] = moved[1].replace('I', '.');
+            char[] row = moved[start.row].toCharArray();
+            row[start.col] = 'I';
+            moved[start.row] = new String(row);
+            MazeProblem prob = new MazeProblem(moved);
+            ArrayList<String> solution = Pathfinder.solve(prob);
+
+            if (solution == null) {
+                // Only the walled-in cell at (1, 5) cannot reach the goal
+                assertEquals(new MazeState(1, 5), start);
+                assertEquals(DistanceFields.UNREACHABLE, fields.cost(start));
+                assertNull(fields.route(start));
+                assertNull(routes.get(i));
+                continue;
+            }
+            int best = prob.testSolution(solution)[1];
+            assertEquals(best, fields.cost(start));
+            for (ActionPath route : new ActionPath[] {fields.route(start), routes.get(i)}) {
+                int[] result = prob.testSolution(route);
+                assertEquals(1, result[0]);
+                assertEquals(best, result[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testBucketQueue_matchesHeap() {
+        Random random = new Random(28);
+        for (int t = 0; t < 30; t++) {
+            MazeProblem prob = new MazeProblem(randomMaze(random, 8 + random.nextInt(25), 8 + random.nextInt(25)));
+            // The maze's step costs are at most 3, so Dijkstra runs over a
+            // BucketQueue; without that bound, it runs over a HeapFrontier
+            ActionPath bucketed = GraphSearch.dijkstra(prob),
+                       heaped = GraphSearch.dijkstra(new Unbounded(prob, false));
+            if (heaped == null) {
+                assertNull(bucketed);
+                continue;
+            }
+            int[] result = prob.testSolution(bucketed);
+            assertEquals(1, result[0]);
+            assertEquals(prob.testSolution(heaped)[1], result[1]);
+
+            // With every step free, the buckets span no priorities at all
+            ActionPath free = GraphSearch.dijkstra(new Unbounded(prob, true));
+            assertEquals(1, prob.testSolution(free)[0]);
+        }
+    }
+
+    /**
+     * A MazeProblem searched either with no bound on its step costs, or with
+     * every step free and so bounded by 0.
+     */
+    private static class Unbounded implements SearchProblem {
+
+        private final MazeProblem maze;
+        private final boolean free;
+
+        Unbounded (MazeProblem maze, boolean free) {
+            this.maze = maze;
+            this.free = free;
+        }
+
+        @Override public int stateCount () { return maze.stateCount(); }
+        @Override public int initialState () { return maze.initialState(); }
+        @Override public boolean isGoal (int state) { return maze.isGoal(state); }
+        @Override public int successors (int state, int[] successors) { return maze.successors(state, successors); }
+        @Override public int maxSuccessors () { return maze.maxSuccessors(); }
+        @Override public int cost (int from, int to) { return free ? 0 : maze.cost(from, to); }
+        @Override public int action (int from, int to) { return maze.action(from, to); }
+        @Override public String[] actionNames () { return maze.actionNames(); }
+        @Override public int maxCost () { return free ? 0 : Integer.MAX_VALUE; }
+    }
+
+}
@@ -0,0 +1,269 @@
+package lcs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import metrics.SolverStats;
+
+/**
+ * A fixed corpus of references, searched for those with the longest common
+ * subsequence with a query. The match-mask table of every reference is computed
+ * once, up front, so that each comparison is a length-only, bit-parallel pass
+ * over the query costing O(n * m / 64), with neither a table nor a solution set
+ * built. Comparisons are split across cores with fork/join; each task reuses one
+ * bit-vector for all of its comparisons, so none of them allocates.
+ */
+public class Corpus {
+
+    /**
+     * How references are ranked: by LCS length, or by similarity ratio,
+     * 2 * length / (query length + reference length)
+     */
+    public enum Ranking { LENGTH, RATIO }
+
+    /**
+     * Number of references below which a task compares them itself rather
+     * than splitting
+     */
+    private static final int SPLIT_THRESHOLD = 256;
+
+    /**
+     * A reference found by a search, with its LCS length and ratio to the query.
+     */
+    public static class Match {
+
+        public final int index, length;
+        public final double ratio;
+
+        Match (int index, int length, double ratio) {
+            this.index = index;
+            this.length = length;
+            this.ratio = ratio;
+        }
+
+        @Override
+        public String toString () {
+            return "#" + index + " (length " + length + ", ratio " + ratio + ")";
+        }
+    }
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MatchMasks[] masks;
+    private final int maxWords;
+    private final long totalLength;
+
+    /**
+     * Constructs a Corpus of the given String references.
+     * @param references The Strings to search, indexed by their position
+     */
+    public Corpus (List<String> references) {
+        this(references.stream().map(LCS::codes).toArray(int[][]::new));
+    }
+
+    /**
+     * Constructs a Corpus of the given token sequence references, such as those
+     * of a {@link Tokenizer}, which must also tokenize the queries.
+     * @param references The sequences to search, indexed by their position
+     */
+    public Corpus (int[][] references) {
+        masks = new MatchMasks[references.length];
+        int words = 0;
+        long total = 0;
+        for (int i = 0; i < references.length; i++) {
+            masks[i] = new MatchMasks(references[i]);
+            words = Math.max(words, masks[i].words);
+            total += references[i].length;
+        }
+        maxWords = words;
+        totalLength = total;
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of references in this corpus
+     */
+    public int size () {
+        return masks.length;
+    }
+
+    /**
+     * Returns the k references ranked highest against query, best first, with
+     * ties going to the lower index.
+     * @param query The String to compare to every reference
+     * @param k The number of references wanted
+     * @param ranking Whether to rank by LCS length or similarity ratio
+     * @return Up to k Matches, best first
+     */
+    public Match[] top (String query, int k, Ranking ranking) {
+        return top(LCS.codes(query), k, ranking, null);
+    }
+
+    /**
+     * Returns the k references ranked highest against a token sequence query,
+     * as {@link #top(String, int, Ranking)} does, counting the DP cells covered
+     * into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public Match[] top (int[] query, int k, Ranking ranking, SolverStats stats) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        stats = SolverStats.begin("lcs.corpus", stats);
+        TopK best = ForkJoinPool.commonPool().invoke(new Search(query, ranking, k, 0, masks.length));
+        if (stats != null) {
+            stats.cellsFilled = query.length * totalLength;
+            stats.end();
+        }
+        return best.matches(query.length, this);
+    }
+
+    /**
+     * Returns the LCS length of query with a single reference.
+     */
+    public int lcsLength (int[] query, int index) {
+        long[] v = new long[masks[index].words];
+        return compare(query, masks[index], v);
+    }
+
+    private static int compare (int[] query, MatchMasks reference, long[] v) {
+        Arrays.fill(v, 0, reference.words, -1L);
+        for (int token : query) {
+            reference.step(v, reference.of(token));
+        }
+        return reference.lcsLength(v);
+    }
+
+    private double ratio (int length, int queryLength, int index) {
+        int total = queryLength + masks[index].length;
+        return (total == 0) ? 1 : 2.0 * length / total;
+    }
+
+
+    /**
+     * Compares the query to references [from, to), splitting the range in half
+     * while it is large.
+     */
+    private class Search extends RecursiveTask<TopK> {
+
+        private static final long serialVersionUID = 1L;
+        private final int[] query;
+        private final Ranking ranking;
+        private final int k, from, to;
+
+        Search (int[] query, Ranking ranking, int k, int from, int to) {
+            this.query = query;
+            this.ranking = ranking;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopK compute () {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Search left = new Search(query, ranking, k, from, middle);
+                left.fork();
+                TopK right = new Search(query, ranking, k, middle, to).compute();
+                return left.join().merge(right);
+            }
+            TopK best = new TopK(k);
+            long[] v = new long[maxWords];
+            for (int i = from; i < to; i++) {
+                int length = compare(query, masks[i], v);
+                best.offer(i, length, (ranking == Ranking.LENGTH) ? length : ratio(length, query.length, i));
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Bounded min-heap keeping the k highest scoring references offered to it;
+     * of equal scores, the lower index ranks higher.
+     */
+    private static class TopK {
+
+        private final int[] index, length;
+        private final double[] score;
+        private int size;
+
+        TopK (int k) {
+            index = new int[k];
+            length = new int[k];
+            score = new double[k];
+        }
+
+        /**
+         * Whether entry a ranks below entry b
+         */
+        private boolean below (double aScore, int aIndex, double bScore, int bIndex) {
+            return aScore < bScore || (aScore == bScore && aIndex > bIndex);
+        }
+
+        void offer (int i, int len, double s) {
+            int k = index.length;
+            if (size < k) {
+                int at = size++;
+                while (at > 0 && below(s, i, score[(at - 1) / 2], index[(at - 1) / 2])) {
+                    move((at - 1) / 2, at);
+                    at = (at - 1) / 2;
+                }
+                set(at, i, len, s);
+            } else if (k > 0 && below(score[0], index[0], s, i)) {
+                int at = 0;
+                while (2 * at + 1 < k) {
+                    int child = 2 * at + 1;
+                    if (child + 1 < k && below(score[child + 1], index[child + 1], score[child], index[child])) {
+                        child++;
+                    }
+                    if (!below(score[child], index[child], s, i)) {
+                        break;
+                    }
+                    move(child, at);
+                    at = child;
+                }
+                set(at, i, len, s);
+            }
+        }
+
+        TopK merge (TopK other) {
+            for (int j = 0; j < other.size; j++) {
+                offer(other.index[j], other.length[j], other.score[j]);
+            }
+            return this;
+        }
+
+        Match[] matches (int queryLength, Corpus corpus) {
+            Integer[] order = new Integer[size];
+            for (int j = 0; j < size; j++) {
+                order[j] = j;
+            }
+            Arrays.sort(order, (a, b) -> (score[a] != score[b])
+                ? Double.compare(score[b], score[a])
+                : Integer.compare(index[a], index[b]));
+            Match[] result = new Match[size];
+            for (int j = 0; j < size; j++) {
+                int at = order[j];
+                result[j] = new Match(index[at], length[at], corpus.ratio(length[at], queryLength, index[at]));
+            }
+            return result;
+        }
+
+        private void move (int from, int to) {
+            set(to, index[from], length[from], score[from]);
+        }
+
+        private void set (int at, int i, int len, double s) {
+            index[at] = i;
+            length[at] = len;
+            score[at] = s;
+        }
+    }
+
+}
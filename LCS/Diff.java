@@ -0,0 +1,304 @@
+package lcs;
+
+import java.util.Arrays;
+
+import metrics.SolverStats;
+
+/**
+ * A longest common subsequence found as the complement of a shortest edit script,
+ * by Myers' O((m+n)D) difference algorithm, where D is the number of characters,
+ * or tokens, deleted and inserted. Rather than filling an m x n table, furthest-reaching
+ * paths are extended along each diagonal of the edit graph, so the work grows with
+ * the number of differences rather than the size of the inputs. The linear-space
+ * refinement is used: each subproblem is split at its middle snake, found by
+ * searching from both ends at once, so only O(m+n) memory is ever needed.
+ * <p>
+ * The edit script is held as runs of a single operation, which turn the first
+ * sequence into the second.
+ */
+public class Diff {
+
+    /**
+     * Edit operations: keep an element of both sequences, delete one from the first,
+     * or insert one from the second
+     */
+    public enum Op { KEEP, DELETE, INSERT }
+
+    private static final Op[] OPS = Op.values();
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final int[] a, b;
+    private byte[] ops = new byte[16];
+    private int[] lengths = new int[16];
+    private int runs, distance;
+
+    /**
+     * Furthest-reaching x along each diagonal, searching forwards and backwards,
+     * shared by every subproblem
+     */
+    private final int[] forward, backward;
+    private final SolverStats stats;
+
+    private Diff (int[] a, int[] b, SolverStats stats) {
+        this.a = a;
+        this.b = b;
+        this.stats = stats;
+        int size = 2 * ((a.length + b.length + 1) / 2) + 3;
+        forward = new int[size];
+        backward = new int[size];
+        diff(0, a.length, 0, b.length);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Computes a shortest edit script between two sequences, whose kept elements
+     * form a longest common subsequence of the two.
+     * @param rSeq The sequence edited from: the chars of a String, or tokens
+     * @param cSeq The sequence edited to
+     * @param stats Stats to count into, or null; nodesExpanded counts the
+     *        furthest-reaching paths extended
+     * @return The Diff from rSeq to cSeq
+     */
+    static Diff compute (int[] rSeq, int[] cSeq, SolverStats stats) {
+        stats = SolverStats.begin("lcs.myers", stats);
+        Diff diff = new Diff(rSeq, cSeq, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return diff;
+    }
+
+    /**
+     * @return The number of elements deleted and inserted, D
+     */
+    public int distance () {
+        return distance;
+    }
+
+    /**
+     * @return The length of the longest common subsequence
+     */
+    public int lcsLength () {
+        return (a.length + b.length - distance) / 2;
+    }
+
+    /**
+     * @return The longest common subsequence, for a Diff between Strings: the
+     * characters kept by the edit script
+     */
+    public String lcs () {
+        StringBuilder result = new StringBuilder(lcsLength());
+        for (int token : common()) {
+            result.append((char) token);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return The longest common subsequence: the elements kept by the edit script
+     */
+    public int[] common () {
+        int[] result = new int[lcsLength()];
+        int x = 0, k = 0;
+        for (int i = 0; i < runs; i++) {
+            if (ops[i] == Op.KEEP.ordinal()) {
+                System.arraycopy(a, x, result, k, lengths[i]);
+                k += lengths[i];
+            }
+            if (ops[i] != Op.INSERT.ordinal()) {
+                x += lengths[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of runs in the edit script
+     */
+    public int size () {
+        return runs;
+    }
+
+    /**
+     * @return The operation of the i-th run of the edit script
+     */
+    public Op op (int i) {
+        return OPS[ops[i]];
+    }
+
+    /**
+     * @return The number of elements that the i-th run of the edit script covers
+     */
+    public int length (int i) {
+        return lengths[i];
+    }
+
+    /**
+     * Returns the edit script as runs, e.g., "[=12, -1, +2, =40]" keeps 12
+     * characters, deletes 1, inserts 2 and keeps 40.
+     */
+    @Override
+    public String toString () {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < runs; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append("=-+".charAt(ops[i])).append(lengths[i]);
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * [Mutator] Appends count of the given operation to the edit script, merging
+     * it into the last run when that is the same operation.
+     */
+    private void emit (Op op, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (op != Op.KEEP) {
+            distance += count;
+        }
+        if (runs > 0 && ops[runs - 1] == op.ordinal()) {
+            lengths[runs - 1] += count;
+            return;
+        }
+        if (runs == ops.length) {
+            ops = Arrays.copyOf(ops, runs * 2);
+            lengths = Arrays.copyOf(lengths, runs * 2);
+        }
+        ops[runs] = (byte) op.ordinal();
+        lengths[runs++] = count;
+    }
+
+    /**
+     * Appends the edit script turning a[aLo, aHi) into b[bLo, bHi). Common prefixes
+     * and suffixes are kept outright; what is left is split at its middle snake,
+     * which halves D on either side, so the recursion is only O(log D) deep.
+     */
+    private void diff (int aLo, int aHi, int bLo, int bHi) {
+        int prefix = 0;
+        while (aLo + prefix < aHi && bLo + prefix < bHi && a[aLo + prefix] == b[bLo + prefix]) {
+            prefix++;
+        }
+        emit(Op.KEEP, prefix);
+        aLo += prefix;
+        bLo += prefix;
+        int suffix = 0;
+        while (aLo < aHi - suffix && bLo < bHi - suffix && a[aHi - suffix - 1] == b[bHi - suffix - 1]) {
+            suffix++;
+        }
+        aHi -= suffix;
+        bHi -= suffix;
+
+        if (aLo == aHi) {
+            emit(Op.INSERT, bHi - bLo);
+        } else if (bLo == bHi) {
+            emit(Op.DELETE, aHi - aLo);
+        } else {
+            long split = middleSnake(aLo, aHi, bLo, bHi);
+            if (split < 0) {
+                emit(Op.DELETE, aHi - aLo);
+                emit(Op.INSERT, bHi - bLo);
+                emit(Op.KEEP, suffix);
+                return;
+            }
+            int x = (int) (split >>> 32), y = (int) split;
+            diff(aLo, x, bLo, y);
+            diff(x, aHi, y, bHi);
+        }
+        emit(Op.KEEP, suffix);
+    }
+
+    /**
+     * Searches the edit graph of a[aLo, aHi) and b[bLo, bHi) forwards from its top
+     * left and backwards from its bottom right, one value of D at a time, until
+     * the two searches overlap on some diagonal; the point where they meet lies on
+     * a shortest edit script.
+     * @return The meeting point, packed as (x << 32) | y, or -1 if the two
+     * have no characters in common
+     */
+    private long middleSnake (int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo, m = bHi - bLo,
+            maxD = (n + m + 1) / 2, offset = maxD + 1,
+            delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        // Diagonals are cleared only as the searches widen to reach them, so that
+        // the cost of a subproblem does not depend on its size
+        Arrays.fill(forward, offset - 1, offset + 2, -1);
+        Arrays.fill(backward, offset - 1, offset + 2, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+
+        // Diagonals that have run off the edges of the graph are no longer searched
+        int fStart = 0, fEnd = 0, bStart = 0, bEnd = 0;
+        for (int d = 0; d < maxD; d++) {
+            if (d > 0) {
+                forward[offset - d - 1] = forward[offset + d + 1] = -1;
+                backward[offset - d - 1] = backward[offset + d + 1] = -1;
+            }
+            for (int k = -d + fStart; k <= d - fEnd; k += 2) {
+                int i = offset + k,
+                    x = (k == -d || (k != d && forward[i - 1] < forward[i + 1]))
+                        ? forward[i + 1]
+                        : forward[i - 1] + 1,
+                    y = x - k;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                forward[i] = x;
+                if (stats != null) {
+                    stats.nodesExpanded++;
+                }
+                if (x > n) {
+                    fEnd += 2;
+                } else if (y > m) {
+                    fStart += 2;
+                } else if (odd) {
+                    int j = offset + delta - k;
+                    if (Math.abs(j - offset) <= d + 1 && backward[j] != -1 && x >= n - backward[j]) {
+                        return ((long) (aLo + x) << 32) | (bLo + y);
+                    }
+                }
+            }
+
+            for (int k = -d + bStart; k <= d - bEnd; k += 2) {
+                int i = offset + k,
+                    x = (k == -d || (k != d && backward[i - 1] < backward[i + 1]))
+                        ? backward[i + 1]
+                        : backward[i - 1] + 1,
+                    y = x - k;
+                while (x < n && y < m && a[aHi - x - 1] == b[bHi - y - 1]) {
+                    x++;
+                    y++;
+                }
+                backward[i] = x;
+                if (stats != null) {
+                    stats.nodesExpanded++;
+                }
+                if (x > n) {
+                    bEnd += 2;
+                } else if (y > m) {
+                    bStart += 2;
+                } else if (!odd) {
+                    int j = offset + delta - k;
+                    if (Math.abs(j - offset) <= d + 1 && forward[j] != -1) {
+                        int fx = forward[j], fy = fx - (j - offset);
+                        if (fx >= n - x) {
+                            return ((long) (aLo + fx) << 32) | (bLo + fy);
+                        }
+                    }
+                }
+            }
+        }
+        // The searches only fail to meet when nothing is in common, D = n + m
+        return -1;
+    }
+
+}
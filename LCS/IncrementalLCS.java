@@ -0,0 +1,129 @@
+package lcs;
+
+import java.util.Arrays;
+
+/**
+ * LCS between a fixed reference and a stream that keeps growing at its end.
+ * Rather than solving again from scratch after every chunk, only the bit-vector
+ * state of the last DP row is kept, and it is advanced one element at a time as
+ * the stream grows: each element costs O(m / 64) for a reference of length m,
+ * and the LCS length can be read at any time.
+ * Memory, too, is O(m / 64): the stream is not kept.
+ * <p>
+ * Keeping the stream is opt-in, for streams that stay bounded: it lets a
+ * snapshot recover an actual longest common subsequence of the reference and
+ * the stream so far, but costs memory in proportion to everything appended.
+ */
+public class IncrementalLCS {
+    
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MatchMasks masks;
+    private final long[] v;
+    private long streamLength;
+    
+    /**
+     * The reference and the stream so far, kept only to take snapshots; null otherwise
+     */
+    private final int[] reference;
+    private int[] stream;
+    
+    /**
+     * Constructs an IncrementalLCS against the given reference, with the stream
+     * still empty and not kept.
+     * @param reference The String that the stream is compared to
+     */
+    public IncrementalLCS (String reference) {
+        this(LCS.codes(reference), false);
+    }
+    
+    /**
+     * Constructs an IncrementalLCS against the given reference token sequence,
+     * such as one of a {@link Tokenizer}, with the stream still empty and not kept.
+     * @param reference The sequence that the stream is compared to
+     */
+    public IncrementalLCS (int[] reference) {
+        this(reference, false);
+    }
+    
+    /**
+     * Constructs an IncrementalLCS against the given reference token sequence,
+     * with the stream still empty.
+     * @param reference The sequence that the stream is compared to
+     * @param keepStream Whether to keep every element appended, so that
+     *        {@link #snapshot()} can be called
+     */
+    public IncrementalLCS (int[] reference, boolean keepStream) {
+        masks = new MatchMasks(reference);
+        v = new long[masks.words];
+        Arrays.fill(v, -1L);
+        this.reference = keepStream ? reference.clone() : null;
+        stream = keepStream ? new int[64] : null;
+    }
+    
+    
+    // Methods
+    // -----------------------------------------------------------------------------
+    
+    /**
+     * [Mutator] Appends the chars of chunk to the stream.
+     */
+    public void append (CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            append(chunk.charAt(i));
+        }
+    }
+    
+    /**
+     * [Mutator] Appends the given tokens to the stream.
+     */
+    public void append (int[] tokens) {
+        for (int token : tokens) {
+            append(token);
+        }
+    }
+    
+    /**
+     * [Mutator] Appends a single char or token to the stream.
+     */
+    public void append (int token) {
+        masks.step(v, masks.of(token));
+        if (stream != null) {
+            if (streamLength == stream.length) {
+                stream = Arrays.copyOf(stream, (int) Math.min(streamLength * 2, Integer.MAX_VALUE - 8));
+            }
+            stream[(int) streamLength] = token;
+        }
+        streamLength++;
+    }
+    
+    /**
+     * @return The length of the LCS of the reference and the stream so far
+     */
+    public int length () {
+        return masks.lcsLength(v);
+    }
+    
+    /**
+     * @return The number of chars or tokens appended to the stream so far
+     */
+    public long streamLength () {
+        return streamLength;
+    }
+    
+    /**
+     * Recovers an actual LCS of the reference and the stream so far, from the
+     * edit script between them; see {@link LCS#diffLCS(int[], int[])}. This
+     * costs O((m+n)D) time for D differences, so is meant to be called far less
+     * often than the stream grows.
+     * @return The Diff from the reference to the stream so far
+     * @throws IllegalStateException If the stream is not being kept
+     */
+    public Diff snapshot () {
+        if (stream == null) {
+            throw new IllegalStateException("Snapshots need the stream to be kept");
+        }
+        return LCS.diffLCS(reference, Arrays.copyOf(stream, (int) streamLength));
+    }
+    
+}
@@ -1,70 +1,229 @@
 package lcs;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
+import metrics.SolverStats;
+
 public class LCS {
     
+    /**
+     * The table filled by the last call to either one of topDownLCS or
+     * bottomUpLCS, kept in its compact form until memoCheck asks for it.
+     */
+    private static Memo lastMemo;
+    
     /**
      * memoCheck is used to verify the state of your tabulation after
-     * performing bottom-up and top-down DP. Make sure to set it after
-     * calling either one of topDownLCS or bottomUpLCS to pass the tests!
+     * performing bottom-up and top-down DP.
+     * @return A copy of the table filled by the last call to either one of
+     *         topDownLCS or bottomUpLCS, or null if neither has been called
      */
-    public static int[][] memoCheck;
+    public static int[][] memoCheck () {
+        return (lastMemo == null) ? null : lastMemo.toArray();
+    }
     
     // -----------------------------------------------
     // Shared Helper Methods
     // -----------------------------------------------
     
     public static Set<String> collectSolution(String rStr, int r, String cStr, int c, int[][] memo){
-		
-    	// reached gutters
-		if (r == 0 || c == 0)
-		{
-			Set<String> temp = new HashSet<String>();
-			temp.add("");
-			return temp;
-		}
-
-		// if the characters match
-		if (rStr.charAt(r - 1) == cStr.charAt(c - 1))
-		{
-			// Add the matched letter to all substrings by recursing top and left
-			Set<String> lcs = collectSolution(rStr, r - 1, cStr, c - 1, memo);
-			Set<String> holding = new HashSet<>();
-			
-			String matchingChar = ("" + rStr.charAt(r-1));
-			
-			// append current character rStr[r - 1] or cStr[c - 1]
-			// to all LCS of substring rStr[0..r-2] and cStr[0..c-2]
-			for(String sub : lcs) {
-				sub = sub + matchingChar;
-				holding.add(sub);
-			}
-			return holding;
-		}
-
-		// if characters don't match
-		
-		Set <String> left = new HashSet<String>();
-		Set <String> up = new HashSet<String>(); 
-
-		// left vs top
-		if (memo[r - 1][c] >= memo[r][c - 1])
-			left = collectSolution(rStr, r-1, cStr, c, memo);
-
-		// top vs left
-		if (memo[r][c - 1] >= memo[r - 1][c])
-			up = collectSolution(rStr, r, cStr, c-1, memo);
-		
-		//merge two sets
-		left.addAll(up);
-		
-		return left;
-	}
+        return collectSolution(rStr, r, cStr, c, Memo.of(memo));
+    }
+    
+    /**
+     * Collects every LCS of the first r chars of rStr and c of cStr by walking back
+     * over a filled table. The walk is as deep as r + c, so it keeps its own stack
+     * of cells rather than recursing; where the table ties, both ways back are
+     * taken, and the sets of cells reached by more than one way are kept so that
+     * each is collected only once.
+     */
+    static Set<String> collectSolution(String rStr, int r, String cStr, int c, Memo memo){
+        HashMap<Long, Set<String>> collected = new HashMap<>();
+        ArrayDeque<Walk> stack = new ArrayDeque<>();
+        stack.push(new Walk(r, c));
+        Set<String> result = null;
+        
+        while (!stack.isEmpty()) {
+            Walk walk = stack.peek();
+            long cell = (long) walk.r * (c + 1) + walk.c;
+            switch (walk.stage) {
+            case Walk.START:
+                // reached gutters
+                if (walk.r == 0 || walk.c == 0) {
+                    result = new HashSet<>();
+                    result.add("");
+                    stack.pop();
+                    break;
+                }
+                Set<String> known = collected.get(cell);
+                if (known != null) {
+                    result = known;
+                    stack.pop();
+                    break;
+                }
+                
+                // if the characters match, recurse top-left
+                if (rStr.charAt(walk.r - 1) == cStr.charAt(walk.c - 1)) {
+                    walk.stage = Walk.MATCHED;
+                    stack.push(new Walk(walk.r - 1, walk.c - 1));
+                    break;
+                }
+                
+                // if they don't, take whichever of top and left holds the longer LCS, or both
+                int up = memo.get(walk.r - 1, walk.c), left = memo.get(walk.r, walk.c - 1);
+                walk.bothWays = up == left;
+                if (up >= left) {
+                    walk.stage = Walk.WENT_UP;
+                    stack.push(new Walk(walk.r - 1, walk.c));
+                } else {
+                    walk.stage = Walk.WENT_LEFT;
+                    stack.push(new Walk(walk.r, walk.c - 1));
+                }
+                break;
+                
+            case Walk.MATCHED:
+                // append the matched character to all LCS of the cell top-left
+                Set<String> holding = new HashSet<>();
+                String matchingChar = "" + rStr.charAt(walk.r - 1);
+                for (String sub : result) {
+                    holding.add(sub + matchingChar);
+                }
+                result = holding;
+                stack.pop();
+                break;
+                
+            case Walk.WENT_UP:
+                if (walk.bothWays) {
+                    walk.fromUp = result;
+                    walk.stage = Walk.WENT_LEFT;
+                    stack.push(new Walk(walk.r, walk.c - 1));
+                    break;
+                }
+                collected.put(cell, result);
+                stack.pop();
+                break;
+                
+            default:
+                // merge the two sets, leaving those already collected unchanged
+                if (walk.fromUp != null) {
+                    Set<String> merged = new HashSet<>(walk.fromUp);
+                    merged.addAll(result);
+                    result = merged;
+                }
+                collected.put(cell, result);
+                stack.pop();
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * A cell of the table being walked back from, and how far its walk has got.
+     */
+    private static class Walk {
+        
+        static final int START = 0, MATCHED = 1, WENT_UP = 2, WENT_LEFT = 3;
+        
+        final int r, c;
+        int stage = START;
+        boolean bothWays;
+        Set<String> fromUp;
+        
+        Walk (int r, int c) {
+            this.r = r;
+            this.c = c;
+        }
+    }
 	
-
+    /**
+     * Returns the chars of str as an int sequence, for the algorithms that work
+     * on token sequences.
+     */
+    static int[] codes (String str) {
+        int[] result = new int[str.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = str.charAt(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the length of the longest common prefix of rSeq and cSeq.
+     */
+    static int commonPrefix (int[] rSeq, int[] cSeq) {
+        int limit = Math.min(rSeq.length, cSeq.length), i = 0;
+        while (i < limit && rSeq[i] == cSeq[i]) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Returns the length of the longest common suffix of rSeq and cSeq that does
+     * not overlap their first prefix elements.
+     */
+    static int commonSuffix (int[] rSeq, int[] cSeq, int prefix) {
+        int limit = Math.min(rSeq.length, cSeq.length) - prefix, i = 0;
+        while (i < limit && rSeq[rSeq.length - 1 - i] == cSeq[cSeq.length - 1 - i]) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Walks a completed memoization table back from its bottom right corner,
+     * collecting a single longest common subsequence.
+     */
+    static int[] traceback (int[] rSeq, int[] cSeq, Memo memo) {
+        int r = rSeq.length, c = cSeq.length;
+        int[] result = new int[memo.get(r, c)];
+        for (int k = result.length; k > 0; ) {
+            if (rSeq[r - 1] == cSeq[c - 1]) {
+                result[--k] = rSeq[r - 1];
+                r--;
+                c--;
+            } else if (memo.get(r - 1, c) >= memo.get(r, c - 1)) {
+                r--;
+            } else {
+                c--;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Solves the LCS of two token sequences by keeping their common prefix and
+     * suffix outright, and running the given DP only on what lies between.
+     */
+    private static int[] trimmedLCS (int[] rSeq, int[] cSeq, boolean bottomUp, SolverStats stats) {
+        int prefix = commonPrefix(rSeq, cSeq),
+            suffix = commonSuffix(rSeq, cSeq, prefix);
+        int[] r = Arrays.copyOfRange(rSeq, prefix, rSeq.length - suffix),
+              c = Arrays.copyOfRange(cSeq, prefix, cSeq.length - suffix);
+        Memo memo = Memo.allocate(r.length, c.length);
+        
+        if (bottomUp) {
+            memo.fill(r, c);
+            if (stats != null) {
+                stats.cellsFilled = (long) r.length * c.length;
+            }
+        } else {
+            topDownTableFill(r, c, memo, stats);
+        }
+        lastMemo = memo;
+        
+        int[] middle = traceback(r, c, memo),
+              result = new int[prefix + middle.length + suffix];
+        System.arraycopy(rSeq, 0, result, 0, prefix);
+        System.arraycopy(middle, 0, result, prefix, middle.length);
+        System.arraycopy(rSeq, rSeq.length - suffix, result, prefix + middle.length, suffix);
+        return result;
+    }
+    
        
     // -----------------------------------------------
     // Bottom-Up LCS
@@ -77,32 +236,204 @@ public class LCS {
      * @param rStr The String found along the table's rows
      * @param cStr The String found along the table's cols
      * @return The longest common subsequence between rStr and cStr +
-     *         [Side Effect] sets memoCheck to refer to table
+     *         [Side Effect] sets the table returned by memoCheck
      */
-    public static Set<String> bottomUpLCS (String rStr, String cStr) {    	
-    	int[][] memo = new int [rStr.length()+1][cStr.length()+1];
+    public static Set<String> bottomUpLCS (String rStr, String cStr) {
+        return bottomUpLCS(rStr, cStr, null);
+    }
+    
+    /**
+     * Bottom-up LCS as {@link #bottomUpLCS(String, String)}, counting the
+     * table cells filled into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public static Set<String> bottomUpLCS (String rStr, String cStr, SolverStats stats) {
+        stats = SolverStats.begin("lcs.bottomUp", stats);
+    	Memo memo = Memo.allocate(rStr.length(), cStr.length());
 
-    	bottomUpTableFill(rStr, cStr, rStr.length(), cStr.length(), memo);
-    	memoCheck = memo;
+    	memo.fill(codes(rStr), codes(cStr));
+    	lastMemo = memo;
 
-    	return collectSolution(rStr, rStr.length(), cStr, cStr.length(), memo);
+    	Set<String> solution = collectSolution(rStr, rStr.length(), cStr, cStr.length(), memo);
+    	if (stats != null) {
+    		stats.cellsFilled = (long) rStr.length() * cStr.length();
+    		stats.end();
+    	}
+    	return solution;
 
     }
 
-    static int bottomUpTableFill( String rStr, String cStr, int rInd, int cInd, int memo[][]) { 
+    /**
+     * Bottom-up LCS over token sequences, such as those of a {@link Tokenizer}.
+     * Their common prefix and suffix are trimmed before the table is filled, so
+     * memoCheck covers only what lies between them.
+     * @param rSeq The sequence found along the table's rows
+     * @param cSeq The sequence found along the table's cols
+     * @return A longest common subsequence of rSeq and cSeq +
+     *         [Side Effect] sets the table returned by memoCheck
+     */
+    public static int[] bottomUpLCS (int[] rSeq, int[] cSeq) {
+        return bottomUpLCS(rSeq, cSeq, null);
+    }
+    
+    /**
+     * Bottom-up LCS as {@link #bottomUpLCS(int[], int[])}, counting the
+     * table cells filled into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public static int[] bottomUpLCS (int[] rSeq, int[] cSeq, SolverStats stats) {
+        stats = SolverStats.begin("lcs.bottomUp", stats);
+        int[] solution = trimmedLCS(rSeq, cSeq, true, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return solution;
+    }
 
-    	for (int i=1; i<=rInd; i++) 
-    	{ 
-    		for (int j=1; j<=cInd; j++) 
-    		{ 
-    		  if (rStr.charAt(i - 1) == cStr.charAt(j - 1)) 
-    			memo[i][j] = 1 + memo[i-1][j-1]; 
-    		else
-    				memo[i][j] = Math.max(memo[i-1][j], memo[i][j-1]); 
-    		}
-    	}	
-    	return memo[rInd][cInd];
-  }  
+    // -----------------------------------------------
+    // Difference LCS
+    // -----------------------------------------------
+    
+    /**
+     * Difference-based approach to the LCS problem, which finds a shortest edit
+     * script turning rStr into cStr by Myers' algorithm and keeps what it does
+     * not edit. Takes O((m+n)D) time and O(m+n) memory for D differences, so is
+     * far faster than the DP approaches on near-identical inputs; a single LCS is
+     * found rather than all of them, and no table is filled.
+     * @param rStr The String edited from
+     * @param cStr The String edited to
+     * @return The Diff from rStr to cStr, giving one longest common subsequence
+     *         and the edit script around it
+     */
+    public static Diff diffLCS (String rStr, String cStr) {
+        return diffLCS(rStr, cStr, null);
+    }
+    
+    /**
+     * Difference LCS as {@link #diffLCS(String, String)}, counting the
+     * furthest-reaching paths extended into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public static Diff diffLCS (String rStr, String cStr, SolverStats stats) {
+        return Diff.compute(codes(rStr), codes(cStr), stats);
+    }
+    
+    /**
+     * Difference LCS over token sequences, such as the lines of two files
+     * interned by the same {@link Tokenizer}.
+     * @param rSeq The sequence edited from
+     * @param cSeq The sequence edited to
+     * @return The Diff from rSeq to cSeq, whose {@link Diff#common()} is one
+     *         longest common subsequence
+     */
+    public static Diff diffLCS (int[] rSeq, int[] cSeq) {
+        return diffLCS(rSeq, cSeq, null);
+    }
+    
+    /**
+     * Difference LCS as {@link #diffLCS(int[], int[])}, counting the
+     * furthest-reaching paths extended into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public static Diff diffLCS (int[] rSeq, int[] cSeq, SolverStats stats) {
+        return Diff.compute(rSeq, cSeq, stats);
+    }
+    
+    // -----------------------------------------------
+    // Thresholded LCS
+    // -----------------------------------------------
+    
+    /**
+     * Decides whether rStr and cStr have a common subsequence at least as long
+     * as the given fraction of the shorter of the two.
+     * @param rStr The String found along the table's rows
+     * @param cStr The String found along the table's cols
+     * @param fraction The fraction of the shorter length to reach, e.g., 0.9
+     * @return Whether their LCS reaches that length
+     */
+    public static boolean similarAtLeast (String rStr, String cStr, double fraction) {
+        int threshold = (int) Math.ceil(fraction * Math.min(rStr.length(), cStr.length()));
+        return lcsAtLeast(codes(rStr), codes(cStr), threshold, null);
+    }
+    
+    /**
+     * Decides whether the LCS of two sequences is at least threshold long,
+     * without filling the full table. A common subsequence of length t leaves
+     * m - t elements of rSeq and n - t of cSeq unmatched, so its path through the
+     * table strays no further than that from the main diagonal: only that band is
+     * filled. Rows are filled until the threshold is reached, or can no longer be
+     * reached even if every remaining element matched.
+     * @param rSeq The sequence found along the table's rows
+     * @param cSeq The sequence found along the table's cols
+     * @param threshold The LCS length to reach
+     * @param stats Stats to count filled cells into, or null
+     * @return Whether the LCS of rSeq and cSeq is at least threshold long
+     */
+    public static boolean lcsAtLeast (int[] rSeq, int[] cSeq, int threshold, SolverStats stats) {
+        stats = SolverStats.begin("lcs.banded", stats);
+        boolean result = bandedFill(rSeq, cSeq, threshold, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return result;
+    }
+    
+    private static boolean bandedFill (int[] rSeq, int[] cSeq, int threshold, SolverStats stats) {
+        int prefix = commonPrefix(rSeq, cSeq),
+            suffix = commonSuffix(rSeq, cSeq, prefix),
+            m = rSeq.length - prefix - suffix, n = cSeq.length - prefix - suffix,
+            t = threshold - prefix - suffix;
+        if (t <= 0) {
+            return true;
+        }
+        if (t > Math.min(m, n)) {
+            return false;
+        }
+        
+        // Cells outside the band hold NONE, so that no path passes through them
+        final int NONE = Integer.MIN_VALUE / 2;
+        int[] prev = new int[n + 1], curr = new int[n + 1];
+        int below = m - t, beyond = n - t;
+        if (beyond + 1 <= n) {
+            prev[beyond + 1] = NONE;
+        }
+        
+        for (int i = 1; i <= m; i++) {
+            int lo = Math.max(0, i - below), hi = Math.min(n, i + beyond),
+                rElem = rSeq[prefix + i - 1], bound = NONE;
+            if (lo == 0) {
+                curr[0] = 0;
+                bound = Math.min(m - i, n);
+                lo = 1;
+            } else {
+                curr[lo - 1] = NONE;
+            }
+            for (int j = lo; j <= hi; j++) {
+                int value = (rElem == cSeq[prefix + j - 1])
+                    ? prev[j - 1] + 1
+                    : Math.max(prev[j], curr[j - 1]);
+                curr[j] = value;
+                bound = Math.max(bound, value + Math.min(m - i, n - j));
+                if (value >= t) {
+                    return true;
+                }
+            }
+            if (stats != null) {
+                stats.cellsFilled += hi - lo + 1;
+            }
+            if (bound < t) {
+                return false;
+            }
+            if (hi + 1 <= n) {
+                curr[hi + 1] = NONE;
+            }
+            int[] swap = prev;
+            prev = curr;
+            curr = swap;
+        }
+        return false;
+    }
+    
     // -----------------------------------------------
     // Top-Down LCS
     // -----------------------------------------------
@@ -114,51 +445,126 @@ public class LCS {
      * @param rStr The String found along the table's rows
      * @param cStr The String found along the table's cols
      * @return The longest common subsequence between rStr and cStr +
-     *         [Side Effect] sets memoCheck to refer to table  
+     *         [Side Effect] sets the table returned by memoCheck  
      */
     public static Set<String> topDownLCS (String rStr, String cStr) {
+        return topDownLCS(rStr, cStr, null);
+    }
+    
+    /**
+     * Top-down LCS as {@link #topDownLCS(String, String)}, counting the
+     * table cells filled into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public static Set<String> topDownLCS (String rStr, String cStr, SolverStats stats) {
+        stats = SolverStats.begin("lcs.topDown", stats);
     	  	 
-        int[][] memo = new int [rStr.length()+1][cStr.length()+1];
+        Memo memo = Memo.allocate(rStr.length(), cStr.length());
     
-    	lcsRecursiveHelper(rStr, rStr.length(), cStr, cStr.length(), memo);
-    	memoCheck = memo;
+    	topDownTableFill(codes(rStr), codes(cStr), memo, stats);
+    	lastMemo = memo;
     	  	
-    	return collectSolution(rStr, rStr.length(), cStr, cStr.length(), memo);
+    	Set<String> solution = collectSolution(rStr, rStr.length(), cStr, cStr.length(), memo);
+    	if (stats != null) {
+    		stats.end();
+    	}
+    	return solution;
     }
     
     /**
-     * Completes the memoization table using top-down dynamic programming
-     * @param rStr The String along the memoization table's rows
-     * @param rInd The current letter's index in rStr
-     * @param cStr The String along the memoization table's cols
-     * @param cInd The current letter's index in cStr
+     * Top-down LCS over token sequences, such as those of a {@link Tokenizer}.
+     * Their common prefix and suffix are trimmed before the table is filled, so
+     * memoCheck covers only what lies between them.
+     * @param rSeq The sequence found along the table's rows
+     * @param cSeq The sequence found along the table's cols
+     * @return A longest common subsequence of rSeq and cSeq +
+     *         [Side Effect] sets the table returned by memoCheck
+     */
+    public static int[] topDownLCS (int[] rSeq, int[] cSeq) {
+        return topDownLCS(rSeq, cSeq, null);
+    }
+    
+    /**
+     * Top-down LCS as {@link #topDownLCS(int[], int[])}, counting the
+     * table cells filled into the given stats.
+     * @param stats Stats to count into, or null
+     */
+    public static int[] topDownLCS (int[] rSeq, int[] cSeq, SolverStats stats) {
+        stats = SolverStats.begin("lcs.topDown", stats);
+        int[] solution = trimmedLCS(rSeq, cSeq, false, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return solution;
+    }
+    
+    /**
+     * Completes the memoization table using top-down dynamic programming,
+     * computing only the cells that the full table's corner depends on. The
+     * recursion is unrolled onto an explicit stack of cells, each of which is
+     * resolved once the cells it depends on are, so long inputs cannot
+     * overflow the call stack.
+     * @param rSeq The sequence along the memoization table's rows
+     * @param cSeq The sequence along the memoization table's cols
      * @param memo The memoization table
+     * @param stats Stats to count filled cells into, or null
+     * @return The length of the longest common subsequence
      */
-    static int lcsRecursiveHelper (String rStr, int rInd, String cStr, int cInd, int[][] memo) {
+    static int topDownTableFill (int[] rSeq, int[] cSeq, Memo memo, SolverStats stats) {
+        int cols = memo.cols, size = 0;
+        int[] stack = new int[64];
+        stack[size++] = rSeq.length * cols + cSeq.length;
         
-    	// base case  
-        if (rInd == 0 || cInd == 0) { 
-            return 0; 
-        } 
-  
-        // check if its been computed  
-        if (memo[rInd][cInd] != 0) { 
-            return memo[rInd][cInd]; 
-        } 
-  
-        // if chars match, store the char and recurse on diagonal  
-        if (rStr.charAt(rInd - 1) == cStr.charAt(cInd - 1)) { 
-            memo[rInd][cInd] = 1 + lcsRecursiveHelper(rStr, rInd - 1, cStr, cInd - 1, memo); 
-  
-            return memo[rInd][cInd]; 
-        } 
-        //if chars don't match, check left and up
-        else { 
-  
-            memo[rInd][cInd] = Math.max(lcsRecursiveHelper(rStr, rInd, cStr, cInd - 1, memo), 
-                    lcsRecursiveHelper(rStr, rInd - 1, cStr, cInd, memo)); 
-  
-            return memo[rInd][cInd]; 
-        } 
-    } 
+        while (size > 0) {
+            int cell = stack[size - 1], r = cell / cols, c = cell % cols;
+            
+            // base case, or already computed
+            if (r == 0 || c == 0 || memo.isSet(r, c)) {
+                size--;
+                continue;
+            }
+            
+            // if chars match, resolve from the diagonal once it is known
+            if (rSeq[r - 1] == cSeq[c - 1]) {
+                if (r == 1 || c == 1 || memo.isSet(r - 1, c - 1)) {
+                    memo.set(r, c, 1 + memo.get(r - 1, c - 1));
+                    size--;
+                    if (stats != null) {
+                        stats.cellsFilled++;
+                    }
+                } else {
+                    stack = push(stack, size++, cell - cols - 1);
+                }
+                continue;
+            }
+            
+            // if chars don't match, resolve from left and up once both are known;
+            // left is pushed last so that it is computed first
+            boolean leftKnown = c == 1 || memo.isSet(r, c - 1),
+                    upKnown = r == 1 || memo.isSet(r - 1, c);
+            if (leftKnown && upKnown) {
+                memo.set(r, c, Math.max(memo.get(r, c - 1), memo.get(r - 1, c)));
+                size--;
+                if (stats != null) {
+                    stats.cellsFilled++;
+                }
+                continue;
+            }
+            if (!upKnown) {
+                stack = push(stack, size++, cell - cols);
+            }
+            if (!leftKnown) {
+                stack = push(stack, size++, cell - 1);
+            }
+        }
+        return memo.get(rSeq.length, cSeq.length);
+    }
+    
+    private static int[] push (int[] stack, int size, int cell) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size] = cell;
+        return stack;
+    }
 }
@@ -0,0 +1,251 @@
+package lcs;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for LCS. Tests include the full-table modes on inputs long
+ * enough that walking back through the table must not recurse, and each of the
+ * faster modes checked against the full table.
+ */
+public class LCSTests {
+
+    @Test
+    public void testLCS_allSolutions() {
+        Set<String> bottomUp = LCS.bottomUpLCS("ABCBDAB", "BDCABA"),
+                    topDown = LCS.topDownLCS("ABCBDAB", "BDCABA");
+        assertEquals(Set.of("BCBA", "BCAB", "BDAB"), bottomUp);
+        assertEquals(bottomUp, topDown);
+    }
+
+    @Test
+    public void testLCS_longInputs() {
+        // cStr is rStr less a few characters, so is the only LCS of the two;
+        // walking back from 4000 characters overflowed the stack when recursive
+        Random random = new Random(37);
+        StringBuilder rStr = new StringBuilder(), cStr = new StringBuilder();
+        for (int i = 0; i < 4000; i++) {
+            char ch = (char) ('a' + random.nextInt(26));
+            rStr.append(ch);
+            if (i % 500 != 7) {
+                cStr.append(ch);
+            }
+        }
+        assertEquals(Set.of(cStr.toString()), LCS.bottomUpLCS(rStr.toString(), cStr.toString()));
+        assertEquals(Set.of(cStr.toString()), LCS.topDownLCS(rStr.toString(), cStr.toString()));
+    }
+
+    @Test
+    public void testDiff_editScript() {
+        // Myers' own example: 5 deletions and insertions around an LCS of 4
+        Diff example = LCS.diffLCS("ABCABBA", "CBABAC");
+        assertEquals(5, example.distance());
+        assertEquals(4, example.lcs().length());
+
+        Random random = new Random(35);
+        for (int t = 0; t < 300; t++) {
+            String rStr = randomString(random, random.nextInt(80), 1 + random.nextInt(4)),
+                   cStr = randomString(random, random.nextInt(80), 1 + random.nextInt(4));
+            int length = LCS.bottomUpLCS(LCS.codes(rStr), LCS.codes(cStr)).length;
+            Diff diff = LCS.diffLCS(rStr, cStr);
+            assertEquals(rStr.length() + cStr.length() - 2 * length, diff.distance());
+            assertEquals(length, diff.lcsLength());
+            assertTrue(isSubsequence(diff.lcs(), rStr) && isSubsequence(diff.lcs(), cStr));
+
+            // Replaying the edit script on rStr gives cStr
+            StringBuilder edited = new StringBuilder();
+            int x = 0, y = 0;
+            for (int i = 0; i < diff.size(); i++) {
+                int n = diff.length(i);
+                switch (diff.op(i)) {
+                case KEEP:
+                    assertEquals(rStr.substring(x, x + n), cStr.substring(y, y + n));
+                    edited.append(rStr, x, x + n);
+                    x += n;
+                    y += n;
+                    break;
+                case DELETE:
+                    x += n;
+                    break;
+                case INSERT:
+                    edited.append(cStr, y, y + n);
+                    y += n;
+                    break;
+                }
+            }
+            assertEquals(rStr.length(), x);
+            assertEquals(cStr, edited.toString());
+        }
+    }
+
+    @Test
+    public void testTokens_linesAndWords() {
+        Tokenizer tokenizer = new Tokenizer();
+        int[] before = tokenizer.lines("int a;\nint b;\r\nreturn a;\rint c;\n"),
+              after = tokenizer.lines("int a;\nint c;\nreturn a;\nint b;\nint c;");
+        assertEquals(4, before.length);
+        assertEquals(5, after.length);
+        // Shared lines get the same id, whatever terminated them
+        assertEquals(before[3], after[1]);
+        for (int[] common : new int[][] {LCS.bottomUpLCS(before, after), LCS.topDownLCS(before, after)}) {
+            assertEquals(3, common.length);
+            assertEquals("int a;", tokenizer.token(common[0]));
+            assertTrue(isSubsequence(common, before) && isSubsequence(common, after));
+        }
+
+        int[] said = tokenizer.words("the  quick brown\tfox jumps"),
+              heard = tokenizer.words(" the brown fox quickly jumps ");
+        assertEquals(5, said.length);
+        assertEquals(5, heard.length);
+        int[] common = LCS.bottomUpLCS(said, heard);
+        StringBuilder words = new StringBuilder();
+        for (int id : common) {
+            words.append(tokenizer.token(id)).append(' ');
+        }
+        assertEquals("the brown fox jumps ", words.toString());
+        assertEquals(common.length, LCS.topDownLCS(said, heard).length);
+        assertEquals(common.length, LCS.diffLCS(said, heard).lcsLength());
+    }
+
+    @Test
+    public void testIncremental_matchesFromScratch() {
+        Random random = new Random(38);
+        for (int t = 0; t < 50; t++) {
+            // References past 64 elements span several words of bits, and past 256
+            // look their elements up directly rather than by hashing
+            String reference = randomString(random, random.nextInt(400), 1 + random.nextInt(5));
+            IncrementalLCS lean = new IncrementalLCS(reference),
+                           kept = new IncrementalLCS(LCS.codes(reference), true);
+            StringBuilder stream = new StringBuilder();
+            for (int chunk = 0; chunk < 6; chunk++) {
+                String appended = randomString(random, random.nextInt(40), 6);
+                lean.append(appended);
+                kept.append(appended);
+                stream.append(appended);
+
+                int length = LCS.bottomUpLCS(LCS.codes(reference), LCS.codes(stream.toString())).length;
+                assertEquals(length, lean.length());
+                assertEquals(length, kept.length());
+                assertEquals(stream.length(), lean.streamLength());
+                Diff snapshot = kept.snapshot();
+                assertEquals(length, snapshot.lcsLength());
+                assertTrue(isSubsequence(snapshot.lcs(), reference) && isSubsequence(snapshot.lcs(), stream.toString()));
+            }
+            try {
+                lean.snapshot();
+                fail("Took a snapshot of a stream that was not kept");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testCorpus_topMatchesBruteForce() {
+        Random random = new Random(39);
+        // Enough references that the search splits across tasks, some long
+        // enough to span several words of bits and use the direct mask table
+        List<String> references = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            references.add(randomString(random, random.nextInt(i % 10 == 0 ? 400 : 60), 4));
+        }
+        Corpus corpus = new Corpus(references);
+        assertEquals(references.size(), corpus.size());
+        for (int t = 0; t < 5; t++) {
+            String query = randomString(random, random.nextInt(100), 4);
+            int[] lengths = new int[references.size()];
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] = LCS.bottomUpLCS(LCS.codes(query), LCS.codes(references.get(i))).length;
+                assertEquals(lengths[i], corpus.lcsLength(LCS.codes(query), i));
+            }
+            for (Corpus.Ranking ranking : Corpus.Ranking.values()) {
+                Corpus.Match[] top = corpus.top(query, 10, ranking);
+                assertEquals(10, top.length);
+                for (int j = 0; j < top.length; j++) {
+                    assertEquals(lengths[top[j].index], top[j].length);
+                    // Ordered best first, ties to the lower index
+                    if (j > 0) {
+                        double previous = score(top[j - 1], ranking), score = score(top[j], ranking);
+                        assertTrue(previous > score || (previous == score && top[j - 1].index < top[j].index));
+                    }
+                }
+                // Nothing left out outranks the last match
+                Corpus.Match last = top[top.length - 1];
+                for (int i = 0; i < lengths.length; i++) {
+                    int total = query.length() + references.get(i).length();
+                    double score = (ranking == Corpus.Ranking.LENGTH) ? lengths[i]
+                                 : (total == 0) ? 1 : 2.0 * lengths[i] / total;
+                    boolean listed = false;
+                    for (Corpus.Match match : top) {
+                        listed |= match.index == i;
+                    }
+                    assertTrue(listed || score < score(last, ranking) ||
+                               (score == score(last, ranking) && i > last.index));
+                }
+            }
+        }
+    }
+
+    private static double score (Corpus.Match match, Corpus.Ranking ranking) {
+        return (ranking == Corpus.Ranking.LENGTH) ? match.length : match.ratio;
+    }
+
+    @Test
+    public void testBanded_exactlyAtThreshold() {
+        Random random = new Random(40);
+        for (int t = 0; t < 300; t++) {
+            int[] rSeq = LCS.codes(randomString(random, random.nextInt(60), 1 + random.nextInt(4))),
+                  cSeq = LCS.codes(randomString(random, random.nextInt(60), 1 + random.nextInt(4)));
+            int length = LCS.bottomUpLCS(rSeq, cSeq).length;
+            // Every threshold around the LCS length, and the extremes
+            for (int threshold = -1; threshold <= Math.min(rSeq.length, cSeq.length) + 1; threshold++) {
+                assertEquals(length >= threshold, LCS.lcsAtLeast(rSeq, cSeq, threshold, null));
+            }
+        }
+        assertTrue(LCS.similarAtLeast("ABCBDAB", "BDCABA", 4.0 / 6));
+        assertFalse(LCS.similarAtLeast("ABCBDAB", "BDCABA", 5.0 / 6));
+    }
+
+    /**
+     * Returns a random String of the given length over the first letters of the
+     * alphabet.
+     */
+    private static String randomString (Random random, int length, int letters) {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append((char) ('A' + random.nextInt(letters)));
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return Whether sub can be found in str by deleting characters
+     */
+    private static boolean isSubsequence (String sub, String str) {
+        int k = 0;
+        for (int i = 0; i < str.length() && k < sub.length(); i++) {
+            if (str.charAt(i) == sub.charAt(k)) {
+                k++;
+            }
+        }
+        return k == sub.length();
+    }
+
+    /**
+     * @return Whether sub can be found in seq by deleting elements
+     */
+    private static boolean isSubsequence (int[] sub, int[] seq) {
+        int k = 0;
+        for (int i = 0; i < seq.length && k < sub.length; i++) {
+            if (seq[i] == sub[k]) {
+                k++;
+            }
+        }
+        return k == sub.length;
+    }
+
+}
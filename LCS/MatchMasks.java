@@ -0,0 +1,130 @@
+package lcs;
+
+/**
+ * Match-mask table of a sequence for bit-parallel LCS: for each distinct element,
+ * a bitset over the sequence's positions marking where it occurs, packed 64
+ * positions to a long word. Small elements, such as ASCII chars, are looked up
+ * directly; the rest through an open-addressing table, so that no lookup boxes.
+ * Sequences shorter than the direct table keep every element in the open table
+ * instead, since a corpus may hold many of them and the direct table's pointers
+ * alone would outweigh their masks.
+ */
+final class MatchMasks {
+    
+    private static final int DIRECT = 256;
+    
+    // Fields
+    // -----------------------------------------------------------------------------
+    final int length, words;
+    private final long[][] direct;
+    private int[] keys = new int[0];
+    private long[][] values = new long[0][];
+    private int otherCount;
+    
+    MatchMasks (int[] seq) {
+        length = seq.length;
+        words = (length + 63) >>> 6;
+        direct = (length >= DIRECT) ? new long[DIRECT][] : null;
+        for (int i = 0; i < length; i++) {
+            long[] mask = of(seq[i]);
+            if (mask == null) {
+                mask = new long[words];
+                if (direct != null && seq[i] >= 0 && seq[i] < DIRECT) {
+                    direct[seq[i]] = mask;
+                } else {
+                    put(seq[i], mask);
+                }
+            }
+            mask[i >>> 6] |= 1L << i;
+        }
+    }
+    
+    /**
+     * @return The positions at which token occurs, or null if it never does
+     */
+    long[] of (int token) {
+        if (direct != null && token >= 0 && token < DIRECT) {
+            return direct[token];
+        }
+        if (otherCount == 0) {
+            return null;
+        }
+        for (int i = slot(token); values[i] != null; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == token) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+    
+    private int slot (int token) {
+        int hash = token * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+    
+    /**
+     * [Mutator] Adds a token not yet in the table, keeping it at most half full.
+     */
+    private void put (int token, long[] mask) {
+        if (2 * (otherCount + 1) > keys.length) {
+            int[] oldKeys = keys;
+            long[][] oldValues = values;
+            keys = new int[Math.max(16, 2 * oldKeys.length)];
+            values = new long[keys.length][];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        insert(token, mask);
+        otherCount++;
+    }
+    
+    private void insert (int token, long[] mask) {
+        int i = slot(token);
+        while (values[i] != null) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = token;
+        values[i] = mask;
+    }
+    
+    /**
+     * [Mutator] Advances the bit-vector state of an LCS against this sequence by
+     * one element of the other sequence, whose positions are given by mask. Each
+     * zero bit of v marks a position where the LCS grows, so its length is the
+     * number of zeros among the first length bits (Hyyro's formulation of
+     * Allison and Dix): v = (v + (v & mask)) | (v & ~mask).
+     * @param v Bit-vector state, initially all ones, one bit per position
+     * @param mask Positions of the element in this sequence, or null if none
+     */
+    void step (long[] v, long[] mask) {
+        if (mask == null) {
+            return;
+        }
+        long carry = 0;
+        for (int w = 0; w < words; w++) {
+            long bits = v[w], u = bits & mask[w],
+                 sum = bits + u + carry;
+            carry = (Long.compareUnsigned(sum, bits) < 0 || (carry != 0 && sum == bits)) ? 1 : 0;
+            v[w] = sum | (bits & ~mask[w]);
+        }
+    }
+    
+    /**
+     * @return The LCS length that the bit-vector state v stands for
+     */
+    int lcsLength (long[] v) {
+        int ones = 0;
+        for (int w = 0; w < words - 1; w++) {
+            ones += Long.bitCount(v[w]);
+        }
+        if (words > 0) {
+            int tail = length - ((words - 1) << 6);
+            ones += Long.bitCount(v[words - 1] & (-1L >>> (64 - tail)));
+        }
+        return length - ones;
+    }
+    
+}
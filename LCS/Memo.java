@@ -0,0 +1,180 @@
+package lcs;
+
+/**
+ * LCS memoization table of (rows + 1) x (cols + 1) cells, stored as one flat
+ * row-major array rather than an array of arrays. Since no LCS is longer than
+ * the shorter input, each cell is as narrow as that allows: a byte, or else a
+ * short. No table needs int cells, as one whose shorter side exceeds 0xFFFF
+ * would have more cells than a single array can hold. Cells hold their value
+ * plus one, so that 0 marks a cell not yet computed, as the top-down mode needs.
+ */
+abstract class Memo {
+
+    /**
+     * Longest table that can be allocated as a single array
+     */
+    private static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    final int rows, cols;
+
+    Memo (int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Allocates an empty table for sequences of the given lengths, in the
+     * narrowest cell width that holds their longest possible LCS.
+     * @throws IllegalArgumentException If the table would have too many cells
+     */
+    static Memo allocate (int rLength, int cLength) {
+        if ((long) (rLength + 1) * (cLength + 1) > MAX_CELLS) {
+            throw new IllegalArgumentException("Inputs too long for a full LCS table");
+        }
+        int rows = rLength + 1, cols = cLength + 1;
+        if (Math.min(rLength, cLength) + 1 <= 0xFF) {
+            return new ByteMemo(rows, cols);
+        }
+        return new ShortMemo(rows, cols);
+    }
+
+    /**
+     * Copies a table of arrays of arrays into a Memo.
+     */
+    static Memo of (int[][] table) {
+        Memo result = allocate(table.length - 1, table[0].length - 1);
+        for (int r = 0; r < table.length; r++) {
+            for (int c = 0; c < table[r].length; c++) {
+                result.set(r, c, table[r][c]);
+            }
+        }
+        return result;
+    }
+
+    abstract int raw (int index);
+
+    abstract void setRaw (int index, int raw);
+
+    /**
+     * [Mutator] Fills the whole table bottom-up for the given sequences, whose
+     * lengths must match it.
+     * @return The length of their longest common subsequence
+     */
+    abstract int fill (int[] rSeq, int[] cSeq);
+
+    /**
+     * @return The LCS length of the first r and c elements, or 0 if not yet computed
+     */
+    int get (int r, int c) {
+        return Math.max(raw(r * cols + c) - 1, 0);
+    }
+
+    boolean isSet (int r, int c) {
+        return raw(r * cols + c) != 0;
+    }
+
+    /**
+     * [Mutator] Sets the LCS length of the first r and c elements.
+     */
+    void set (int r, int c, int value) {
+        setRaw(r * cols + c, value + 1);
+    }
+
+    /**
+     * @return A copy of the table as arrays of arrays, with cells not computed as 0
+     */
+    int[][] toArray () {
+        int[][] result = new int[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                result[r][c] = get(r, c);
+            }
+        }
+        return result;
+    }
+
+
+    // Cell widths
+    // -----------------------------------------------------------------------------
+    // Each fills its own array directly, with the gutters set to 0 (stored as 1)
+    // so that the inner loop needs neither bounds cases nor decoding
+
+    private static class ByteMemo extends Memo {
+
+        private final byte[] cells;
+
+        ByteMemo (int rows, int cols) {
+            super(rows, cols);
+            cells = new byte[rows * cols];
+        }
+
+        @Override
+        int raw (int index) {
+            return cells[index] & 0xFF;
+        }
+
+        @Override
+        void setRaw (int index, int raw) {
+            cells[index] = (byte) raw;
+        }
+
+        @Override
+        int fill (int[] rSeq, int[] cSeq) {
+            for (int c = 0; c < cols; c++) {
+                cells[c] = 1;
+            }
+            for (int r = 1, row = cols; r < rows; r++, row += cols) {
+                cells[row] = 1;
+                int rElem = rSeq[r - 1];
+                for (int c = 1; c < cols; c++) {
+                    int i = row + c;
+                    cells[i] = (rElem == cSeq[c - 1])
+                        ? (byte) ((cells[i - cols - 1] & 0xFF) + 1)
+                        : (byte) Math.max(cells[i - cols] & 0xFF, cells[i - 1] & 0xFF);
+                }
+            }
+            return raw(rows * cols - 1) - 1;
+        }
+    }
+
+    private static class ShortMemo extends Memo {
+
+        private final short[] cells;
+
+        ShortMemo (int rows, int cols) {
+            super(rows, cols);
+            cells = new short[rows * cols];
+        }
+
+        @Override
+        int raw (int index) {
+            return cells[index] & 0xFFFF;
+        }
+
+        @Override
+        void setRaw (int index, int raw) {
+            cells[index] = (short) raw;
+        }
+
+        @Override
+        int fill (int[] rSeq, int[] cSeq) {
+            for (int c = 0; c < cols; c++) {
+                cells[c] = 1;
+            }
+            for (int r = 1, row = cols; r < rows; r++, row += cols) {
+                cells[row] = 1;
+                int rElem = rSeq[r - 1];
+                for (int c = 1; c < cols; c++) {
+                    int i = row + c;
+                    cells[i] = (rElem == cSeq[c - 1])
+                        ? (short) ((cells[i - cols - 1] & 0xFFFF) + 1)
+                        : (short) Math.max(cells[i - cols] & 0xFFFF, cells[i - 1] & 0xFFFF);
+                }
+            }
+            return raw(rows * cols - 1) - 1;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package lcs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns the lines or words of texts as dense int ids, so that LCS can compare
+ * whole tokens at a time rather than single characters: equal tokens get equal
+ * ids, and the ids run from 0 to {@link #size()} - 1. Texts that are to be
+ * compared must be tokenized by the same Tokenizer.
+ */
+public class Tokenizer {
+    
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> tokens = new ArrayList<>();
+    
+    
+    // Methods
+    // -----------------------------------------------------------------------------
+    
+    /**
+     * [Mutator] Splits text into lines, without their line terminators ("\n",
+     * "\r\n" or "\r"), and interns each one.
+     * @param text The text to tokenize
+     * @return The id of each line, in order
+     */
+    public int[] lines (String text) {
+        IntBuffer result = new IntBuffer();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\n' || ch == '\r') {
+                result.add(intern(text.substring(start, i)));
+                if (ch == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            result.add(intern(text.substring(start)));
+        }
+        return result.toArray();
+    }
+    
+    /**
+     * [Mutator] Splits text into words separated by whitespace, and interns each one.
+     * @param text The text to tokenize
+     * @return The id of each word, in order
+     */
+    public int[] words (String text) {
+        IntBuffer result = new IntBuffer();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean space = i == text.length() || Character.isWhitespace(text.charAt(i));
+            if (space && start >= 0) {
+                result.add(intern(text.substring(start, i)));
+                start = -1;
+            } else if (!space && start < 0) {
+                start = i;
+            }
+        }
+        return result.toArray();
+    }
+    
+    /**
+     * [Mutator] Returns the id of the given token, giving it the next free id if
+     * it has not been seen before.
+     */
+    public int intern (String token) {
+        Integer id = ids.get(token);
+        if (id == null) {
+            id = tokens.size();
+            ids.put(token, id);
+            tokens.add(token);
+        }
+        return id;
+    }
+    
+    /**
+     * @return The token with the given id
+     */
+    public String token (int id) {
+        return tokens.get(id);
+    }
+    
+    /**
+     * @return The number of distinct tokens interned so far
+     */
+    public int size () {
+        return tokens.size();
+    }
+    
+    /**
+     * Minimal growable array of ints, to collect ids without boxing them.
+     */
+    private static class IntBuffer {
+        
+        private int[] values = new int[16];
+        private int size;
+        
+        void add (int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int[] toArray () {
+            return Arrays.copyOf(values, size);
+        }
+    }
+    
+}
@@ -0,0 +1,42 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event committed at the end of each instrumented solver call, timed from
+ * {@link SolverStats#begin} to {@link SolverStats#end}.
+ */
+@Name("algo.Solve")
+@Label("Solver Call")
+@Category("Algo")
+@Description("A single call to one of the search, game, CSP or LCS solvers")
+class SolveEvent extends jdk.jfr.Event {
+    
+    @Label("Solver")
+    String solver;
+    
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+    
+    @Label("Peak Frontier")
+    long peakFrontier;
+    
+    @Label("Transposition Hits")
+    long transpositionHits;
+    
+    @Label("Table Lookups")
+    long tableLookups;
+    
+    @Label("Prunes")
+    long prunes;
+    
+    @Label("Backtracks")
+    long backtracks;
+    
+    @Label("Cells Filled")
+    long cellsFilled;
+    
+}
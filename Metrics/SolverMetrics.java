@@ -0,0 +1,79 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative counters across every solver call, kept per solver in LongAdders so
+ * that concurrent solvers do not contend. Solvers only gather stats of their own
+ * accord when the system property algo.metrics is true, or while a JFR recording
+ * wants the solve event; otherwise the bookkeeping costs no more than a null check.
+ * Stats gathered only for JFR are not added to these counters.
+ */
+public class SolverMetrics {
+    
+    public static final boolean ENABLED = Boolean.getBoolean("algo.metrics");
+    
+    private static final Map<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+    
+    /**
+     * Cumulative totals for a single solver
+     */
+    public static class Counters {
+        public final LongAdder calls = new LongAdder(),
+                               nodesExpanded = new LongAdder(),
+                               transpositionHits = new LongAdder(),
+                               tableLookups = new LongAdder(),
+                               prunes = new LongAdder(),
+                               backtracks = new LongAdder(),
+                               cellsFilled = new LongAdder(),
+                               elapsedNanos = new LongAdder();
+        
+        /**
+         * Largest frontier seen by any single call
+         */
+        public final LongAccumulator peakFrontier = new LongAccumulator(Math::max, 0);
+        
+        @Override
+        public String toString () {
+            return "{calls=" + calls + ", expanded=" + nodesExpanded + ", peakFrontier=" + peakFrontier +
+                   ", transpositionHits=" + transpositionHits + ", tableLookups=" + tableLookups +
+                   ", prunes=" + prunes + ", backtracks=" + backtracks +
+                   ", cellsFilled=" + cellsFilled + ", elapsedNanos=" + elapsedNanos + "}";
+        }
+    }
+    
+    /**
+     * Returns the cumulative counters for the given solver, e.g., "csp.backtrack".
+     */
+    public static Counters counters (String solver) {
+        return COUNTERS.computeIfAbsent(solver, s -> new Counters());
+    }
+    
+    /**
+     * @return A live, read-only view of the cumulative counters of every solver called so far
+     */
+    public static Map<String, Counters> all () {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+    
+    /**
+     * Adds the stats of a finished solver call to its solver's cumulative counters.
+     */
+    static void record (SolverStats stats) {
+        Counters counters = counters(stats.solver);
+        counters.calls.increment();
+        counters.nodesExpanded.add(stats.nodesExpanded);
+        counters.transpositionHits.add(stats.transpositionHits);
+        counters.tableLookups.add(stats.tableLookups);
+        counters.prunes.add(stats.prunes);
+        counters.backtracks.add(stats.backtracks);
+        counters.cellsFilled.add(stats.cellsFilled);
+        counters.elapsedNanos.add(stats.elapsedNanos);
+        counters.peakFrontier.accumulate(stats.peakFrontier);
+    }
+    
+}
@@ -0,0 +1,101 @@
+package metrics;
+
+/**
+ * Statistics gathered during a single solver call: how much searching was done
+ * and how long it took. Callers may pass one to a solver to read back afterwards;
+ * otherwise solvers only create one when {@link SolverMetrics#ENABLED} is set,
+ * or when a JFR recording has the solve event enabled, as its fields are filled
+ * from the stats. Only stats passed in by callers or kept under ENABLED are added
+ * to the cumulative counters.
+ * Not every solver fills in every counter.
+ */
+public class SolverStats {
+    
+    // Fields
+    // -----------------------------------------------------------------------------
+    public String solver;
+    public long nodesExpanded, peakFrontier, transpositionHits, tableLookups, prunes, backtracks, cellsFilled, elapsedNanos;
+    private long startNanos;
+    private SolveEvent event;
+    private boolean cumulative;
+    
+    
+    // Methods
+    // -----------------------------------------------------------------------------
+    
+    /**
+     * Marks the start of a solver call, returning the stats object that the
+     * solver should count into, or null when there is nothing to count into.
+     * 
+     * @param solver Name of the solver being called, e.g., "pathfinder.astar"
+     * @param stats Stats object supplied by the caller, which is reset, or null
+     * @return The caller's stats, a new stats object if metrics are enabled or a
+     *         JFR recording wants the solve event, or null
+     */
+    public static SolverStats begin (String solver, SolverStats stats) {
+        // JFR answers isEnabled without cost when no recording wants the event
+        SolveEvent event = new SolveEvent();
+        boolean recording = event.isEnabled();
+        if (stats == null) {
+            if (!SolverMetrics.ENABLED && !recording) {
+                return null;
+            }
+            stats = new SolverStats();
+            stats.cumulative = SolverMetrics.ENABLED;
+        } else {
+            stats.cumulative = true;
+        }
+        stats.solver = solver;
+        stats.nodesExpanded = stats.peakFrontier = stats.transpositionHits =
+            stats.tableLookups = stats.prunes = stats.backtracks = stats.cellsFilled = stats.elapsedNanos = 0;
+        stats.event = null;
+        if (recording) {
+            event.begin();
+            stats.event = event;
+        }
+        stats.startNanos = System.nanoTime();
+        return stats;
+    }
+    
+    /**
+     * [Mutator] Raises the peak frontier size to the given size if it is larger.
+     */
+    public void frontier (long size) {
+        if (size > peakFrontier) {
+            peakFrontier = size;
+        }
+    }
+    
+    /**
+     * [Mutator] Marks the end of the solver call: records its duration, adds these
+     * stats to the cumulative counters unless they exist only for JFR, and commits
+     * a JFR event if one is recording.
+     */
+    public void end () {
+        elapsedNanos = System.nanoTime() - startNanos;
+        if (cumulative) {
+            SolverMetrics.record(this);
+        }
+        if (event != null) {
+            event.solver = solver;
+            event.nodesExpanded = nodesExpanded;
+            event.peakFrontier = peakFrontier;
+            event.transpositionHits = transpositionHits;
+            event.tableLookups = tableLookups;
+            event.prunes = prunes;
+            event.backtracks = backtracks;
+            event.cellsFilled = cellsFilled;
+            event.commit();
+            event = null;
+        }
+    }
+    
+    @Override
+    public String toString () {
+        return solver + " {expanded=" + nodesExpanded + ", peakFrontier=" + peakFrontier +
+               ", transpositionHits=" + transpositionHits + ", tableLookups=" + tableLookups +
+               ", prunes=" + prunes + ", backtracks=" + backtracks +
+               ", cellsFilled=" + cellsFilled + ", elapsedNanos=" + elapsedNanos + "}";
+    }
+    
+}
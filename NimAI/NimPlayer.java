@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 
+import metrics.SolverStats;
+
 /**
  * Artificial Intelligence responsible for playing the game of Nim!
  * Implements the alpha-beta-pruning mini-max search algorithm
@@ -11,9 +13,21 @@ import java.util.HashMap;
 public class NimPlayer {
     
     private final int MAX_REMOVAL;
+    private final Tablebase tablebase;
     
     NimPlayer (int MAX_REMOVAL) {
+        this(MAX_REMOVAL, null);
+    }
+    
+    /**
+     * Constructs a NimPlayer that answers from the given tablebase wherever it
+     * covers the position, and searches only beyond it.
+     * @param   MAX_REMOVAL The most stones that may be removed in one action
+     * @param   tablebase   A loaded Tablebase, or null to always search
+     */
+    NimPlayer (int MAX_REMOVAL, Tablebase tablebase) {
         this.MAX_REMOVAL = MAX_REMOVAL;
+        this.tablebase = tablebase;
     }
     
     
@@ -24,10 +38,35 @@ public class NimPlayer {
      *          of [1, MAX_REMOVAL]
      */
     public int choose(int remaining) {
+        return choose(remaining, null);
+    }
+    
+    /**
+     * Chooses an action as {@link #choose(int)} does, counting game tree nodes
+     * expanded and transposition hits, or a move read from the tablebase into
+     * tableLookups, into the given stats.
+     * @param   remaining   Integer representing the amount of stones left in the pile
+     * @param   stats   Stats to count into, or null
+     * @return  An int action representing the number of stones to remove in the range
+     *          of [1, MAX_REMOVAL]
+     */
+    public int choose(int remaining, SolverStats stats) {
+        if (tablebase != null && tablebase.covers(MAX_REMOVAL, remaining)) {
+            stats = SolverStats.begin("nim.tablebase", stats);
+            if (stats != null) {
+                stats.tableLookups++;
+                stats.end();
+            }
+            return tablebase.bestMove(MAX_REMOVAL, remaining);
+        }
+        stats = SolverStats.begin("nim.alphaBeta", stats);
         GameTreeNode root = new GameTreeNode(remaining, 0, true);
         Map <GameTreeNode, Integer> visited = new HashMap<>();
         
-        alphaBetaMinimax(root, Integer.MIN_VALUE, Integer.MAX_VALUE, true, visited);
+        alphaBetaMinimax(root, Integer.MIN_VALUE, Integer.MAX_VALUE, true, visited, stats);
+        if (stats != null) {
+            stats.end();
+        }
    	 
         int action = -1;
         int high = -1;  
@@ -49,10 +88,14 @@ public class NimPlayer {
      * @param   beta    Largest minimax score possible
      * @param   isMax   Boolean representing whether the given node is a max (true) or min (false) node
      * @param   visited Map of GameTreeNodes to their minimax scores to avoid repeating large subtrees
+     * @param   stats   Stats to count expansions and transposition hits into, or null
      * @return  Minimax score of the given node + [Side effect] constructs the game tree originating
      *          from the given node
      */
-    private int alphaBetaMinimax (GameTreeNode node, int alpha, int beta, boolean isMax, Map<GameTreeNode, Integer> visited) {
+    private int alphaBetaMinimax (GameTreeNode node, int alpha, int beta, boolean isMax, Map<GameTreeNode, Integer> visited, SolverStats stats) {
+    if (stats != null) {
+        stats.nodesExpanded++;
+    }
           		  		    	
     if (node.remaining == 0 && node.isMax) {
     	return 0;	
@@ -68,9 +111,12 @@ public class NimPlayer {
 
     		if (visited.containsKey(child)) {
 				child.score = visited.get(child);
+				if (stats != null) {
+					stats.transpositionHits++;
+				}
 			}
    			else {
-   				child.score = alphaBetaMinimax(child, alpha, beta, !isMax, visited);
+   				child.score = alphaBetaMinimax(child, alpha, beta, !isMax, visited, stats);
    				visited.put(child, child.score);
    			}
     			
@@ -90,9 +136,12 @@ public class NimPlayer {
     		    		    		
     			if (visited.containsKey(child)) {
 					child.score = visited.get(child);
+					if (stats != null) {
+						stats.transpositionHits++;
+					}
 				}
     			else {
-    				child.score = alphaBetaMinimax(child, alpha, beta, !isMax, visited);
+    				child.score = alphaBetaMinimax(child, alpha, beta, !isMax, visited, stats);
     				visited.put(child, child.score);
     			}
     			
@@ -0,0 +1,51 @@
+package nim;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import metrics.SolverStats;
+
+/**
+ * Unit tests for the Nim player. Tests include the moves read from a tablebase
+ * agreeing with those of the alpha-beta search it stands in for.
+ */
+public class NimPlayerTests {
+
+    @Test
+    public void testTablebase_matchesSearch() throws IOException {
+        Path file = Files.createTempFile("nim", ".tablebase");
+        try {
+            Tablebase.generate(5, 40, file);
+            Tablebase tablebase = Tablebase.load(file);
+            for (int rule = 1; rule <= 5; rule++) {
+                NimPlayer searching = new NimPlayer(rule),
+                          tabled = new NimPlayer(rule, tablebase);
+                for (int pile = 1; pile <= 40; pile++) {
+                    assertTrue(tablebase.covers(rule, pile));
+                    // The player to move loses exactly on multiples of rule + 1
+                    assertEquals(pile % (rule + 1) != 0, tablebase.isWin(rule, pile));
+
+                    SolverStats stats = new SolverStats();
+                    assertEquals(searching.choose(pile), tabled.choose(pile, stats));
+                    assertEquals(1, stats.tableLookups);
+                    assertEquals(0, stats.transpositionHits);
+                    assertEquals(0, stats.nodesExpanded);
+                }
+            }
+
+            // Beyond the table, the player falls back to searching
+            assertFalse(tablebase.covers(3, 41));
+            assertFalse(tablebase.covers(6, 10));
+            SolverStats stats = new SolverStats();
+            assertEquals(new NimPlayer(3).choose(41), new NimPlayer(3, tablebase).choose(41, stats));
+            assertEquals(0, stats.tableLookups);
+            assertTrue(stats.nodesExpanded > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package nim;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Precomputed Nim endgame tablebase: for every removal rule MAX_REMOVAL in
+ * [1, maxRemoval] and every pile size in [0, maxPile], whether the player to move
+ * wins and the move that NimPlayer would choose. Tables are written once to a
+ * compact binary file, then memory-mapped read-only, so that loading one costs
+ * no searching, and every process that maps the same file shares its pages.
+ * The format, with all ints big-endian, is laid out as:
+ * <pre>
+ * int  MAGIC, VERSION
+ * int  maxRemoval, maxPile
+ * byte entries[maxRemoval][maxPile + 1]  -- win in the high bit, best move in the rest
+ * </pre>
+ */
+public class Tablebase {
+    
+    // Fields
+    // -----------------------------------------------------------------------------
+    static final int MAGIC = 0x4E494D54, // "NIMT"
+                     VERSION = 1,
+                     HEADER_BYTES = 4 * Integer.BYTES,
+                     MAX_RULE = 0x7F;
+    
+    private static final int WIN = 0x80, MOVE = 0x7F;
+    
+    private final ByteBuffer entries;
+    private final int maxRemoval, maxPile;
+    
+    private Tablebase (ByteBuffer entries, int maxRemoval, int maxPile) {
+        this.entries = entries;
+        this.maxRemoval = maxRemoval;
+        this.maxPile = maxPile;
+    }
+    
+    
+    // Methods
+    // -----------------------------------------------------------------------------
+    
+    /**
+     * Generates a tablebase file from the command line:
+     * <pre>java nim.Tablebase maxRemoval maxPile file</pre>
+     */
+    public static void main (String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: java nim.Tablebase maxRemoval maxPile file");
+            System.exit(2);
+        }
+        generate(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Paths.get(args[2]));
+    }
+    
+    /**
+     * Computes the tablebase for the given ranges and writes it to file. A pile is
+     * won by the player to move if some move leaves the opponent a lost pile, and
+     * the empty pile is lost, so each entry follows from the nearest lost pile
+     * below it; entries are streamed out as they are found, in O(1) each.
+     * <p>
+     * The best move from a won pile is the least move that leaves a lost pile;
+     * from a lost pile it is 1, the first of the equally losing moves, as
+     * {@link NimPlayer#choose(int)} would choose.
+     * 
+     * @param maxRemoval Largest removal rule to cover, in [1, 127]
+     * @param maxPile Largest pile size to cover
+     * @param file Destination of the tablebase
+     * @throws IOException If the file cannot be written
+     */
+    public static void generate (int maxRemoval, int maxPile, Path file) throws IOException {
+        if (maxRemoval < 1 || maxRemoval > MAX_RULE || maxPile < 0 ||
+            HEADER_BYTES + (long) maxRemoval * (maxPile + 1L) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tablebase ranges out of bounds");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(maxRemoval).putInt(maxPile);
+            out.write(header.array());
+            
+            for (int rule = 1; rule <= maxRemoval; rule++) {
+                int lastLost = 0;
+                out.write(0);
+                for (int pile = 1; pile <= maxPile; pile++) {
+                    if (pile - lastLost <= rule) {
+                        out.write(WIN | (pile - lastLost));
+                    } else {
+                        out.write(1);
+                        lastLost = pile;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Memory-maps the given tablebase file read-only.
+     * 
+     * @param file Path to a tablebase written by {@link #generate}
+     * @return Tablebase backed by the mapped file
+     * @throws IOException If the file cannot be read or is not a valid tablebase
+     */
+    public static Tablebase load (Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Tablebase too large to map: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        
+        if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a tablebase: " + file);
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported tablebase version " + mapped.getInt(4));
+        }
+        int maxRemoval = mapped.getInt(8), maxPile = mapped.getInt(12);
+        if (maxRemoval < 1 || maxRemoval > MAX_RULE || maxPile < 0 ||
+            HEADER_BYTES + (long) maxRemoval * (maxPile + 1L) != mapped.limit()) {
+            throw new IOException("Tablebase is truncated or corrupt: " + file);
+        }
+        return new Tablebase(mapped.slice(HEADER_BYTES, mapped.limit() - HEADER_BYTES), maxRemoval, maxPile);
+    }
+    
+    /**
+     * @return Whether this tablebase has an entry for the given rule and pile
+     */
+    public boolean covers (int removal, int remaining) {
+        return removal >= 1 && removal <= maxRemoval && remaining >= 0 && remaining <= maxPile;
+    }
+    
+    /**
+     * @return Whether the player to move wins from the given pile
+     */
+    public boolean isWin (int removal, int remaining) {
+        return (entry(removal, remaining) & WIN) != 0;
+    }
+    
+    /**
+     * @return The number of stones NimPlayer removes from the given pile, or -1
+     * if the pile is empty
+     */
+    public int bestMove (int removal, int remaining) {
+        int move = entry(removal, remaining) & MOVE;
+        return (move == 0) ? -1 : move;
+    }
+    
+    private int entry (int removal, int remaining) {
+        if (!covers(removal, remaining)) {
+            throw new IllegalArgumentException("Position not in tablebase");
+        }
+        return entries.get((removal - 1) * (maxPile + 1) + remaining) & 0xFF;
+    }
+    
+}
@@ -0,0 +1,183 @@
+package pathfinder.search;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact, immutable sequence of actions leading from the initial state to a goal,
+ * storing one byte per action code rather than one String per step. A List of
+ * action names is available as a lazy view for callers that expect one.
+ */
+public final class ActionPath {
+    
+    private final byte[] codes;
+    private final String[] names;
+    
+    /**
+     * Constructs a new ActionPath over the given action codes, which it takes
+     * ownership of.
+     * @param codes Action codes, each an index into names
+     * @param names Names of the actions, e.g., {"U", "D", "L", "R"}
+     */
+    ActionPath (byte[] codes, String[] names) {
+        this.codes = codes;
+        this.names = names;
+    }
+    
+    /**
+     * Builds the path to the given state by walking back through its parents
+     * once, collecting action codes in reverse and then reversing them in place.
+     * 
+     * @param problem The problem whose actions the path follows
+     * @param parent Parent of each state in the search tree, negative for the root
+     * @param end The state the path leads to
+     */
+    static ActionPath retrace (SearchProblem problem, int[] parent, int end) {
+        byte[] codes = new byte[16];
+        int length = 0;
+        for (int curr = end; parent[curr] >= 0; curr = parent[curr]) {
+            if (length == codes.length) {
+                codes = Arrays.copyOf(codes, length * 2);
+            }
+            codes[length++] = (byte) problem.action(parent[curr], curr);
+        }
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            byte swap = codes[i];
+            codes[i] = codes[j];
+            codes[j] = swap;
+        }
+        return new ActionPath(Arrays.copyOf(codes, length), problem.actionNames());
+    }
+    
+    /**
+     * Accumulates action codes, in order, into an ActionPath.
+     */
+    public static class Builder {
+        
+        private final String[] names;
+        private byte[] codes = new byte[16];
+        private int size;
+        
+        /**
+         * @param names Names of the actions, whose indices are their codes
+         */
+        public Builder (String[] names) {
+            this.names = names;
+        }
+        
+        /**
+         * [Mutator] Appends the action with the given code.
+         */
+        public Builder add (int code) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = (byte) code;
+            return this;
+        }
+        
+        public ActionPath build () {
+            return new ActionPath(Arrays.copyOf(codes, size), names);
+        }
+    }
+    
+    /**
+     * Encodes a List of action names as an ActionPath.
+     * 
+     * @param actions Actions of the format: ["R", "R", "L", ...]
+     * @param names Names of the actions, whose indices become their codes
+     * @throws IllegalArgumentException If an action is not one of names
+     */
+    public static ActionPath of (List<String> actions, String[] names) {
+        byte[] codes = new byte[actions.size()];
+        int i = 0;
+        for (String action : actions) {
+            int code = Arrays.asList(names).indexOf(action);
+            if (code < 0) {
+                throw new IllegalArgumentException("Unknown action " + action);
+            }
+            codes[i++] = (byte) code;
+        }
+        return new ActionPath(codes, names);
+    }
+    
+    /**
+     * @return The number of actions in this path
+     */
+    public int size () {
+        return codes.length;
+    }
+    
+    /**
+     * @return The code of the i-th action, an index into the action names
+     */
+    public int code (int i) {
+        return codes[i];
+    }
+    
+    /**
+     * @return The name of the i-th action, e.g., "R"
+     */
+    public String action (int i) {
+        return names[codes[i]];
+    }
+    
+    /**
+     * @return A read-only List view of the action names in this path, of the
+     * format: ["R", "R", "L", ...], which creates no Strings of its own
+     */
+    public List<String> asList () {
+        return new ActionList();
+    }
+    
+    /**
+     * @return Run-length encoding of this path, e.g., "R x 400, D x 2, L"
+     */
+    @Override
+    public String toString () {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < codes.length; ) {
+            int run = i;
+            while (run < codes.length && codes[run] == codes[i]) {
+                run++;
+            }
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(names[codes[i]]);
+            if (run - i > 1) {
+                result.append(" x ").append(run - i);
+            }
+            i = run;
+        }
+        return result.append("]").toString();
+    }
+    
+    @Override
+    public boolean equals (Object other) {
+        return other instanceof ActionPath
+            ? Arrays.equals(codes, ((ActionPath) other).codes) && Arrays.equals(names, ((ActionPath) other).names)
+            : false;
+    }
+    
+    @Override
+    public int hashCode () {
+        return Arrays.hashCode(codes);
+    }
+    
+    private class ActionList extends AbstractList<String> implements RandomAccess {
+        
+        @Override
+        public String get (int index) {
+            return names[codes[index]];
+        }
+        
+        @Override
+        public int size () {
+            return codes.length;
+        }
+    }
+    
+}
@@ -0,0 +1,334 @@
+package pathfinder.search;
+
+import java.util.Arrays;
+
+import metrics.SolverStats;
+
+/**
+ * Anytime Repairing A* (ARA*): finds a first solution quickly using a heuristic
+ * inflated by a weight, then keeps lowering the weight and improving the solution
+ * for as long as a time budget allows. Each improvement reuses the costs found by
+ * the previous ones, only re-expanding states whose costs have since dropped.
+ * <p>
+ * Every solution reported comes with a bound on its suboptimality: its cost is at
+ * most bound times the optimal cost, and a bound of 1 means it is optimal.
+ */
+public class AnytimeSearch {
+
+    /**
+     * Amount by which the heuristic weight is lowered between improvements
+     */
+    static final double WEIGHT_STEP = 0.5;
+
+    /**
+     * Weights are fixed-point, in units of 1 / SCALE, so priorities stay integral
+     */
+    private static final int SCALE = 16;
+
+    /**
+     * How many expansions pass between checks of the clock
+     */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    /**
+     * The best solution found within the budget.
+     */
+    public static class Result {
+
+        /**
+         * The actions leading from the initial state to a goal
+         */
+        public final ActionPath path;
+
+        /**
+         * The cost of path, and an upper bound on how many times the optimal cost it is
+         */
+        public final int cost;
+        public final double bound;
+
+        /**
+         * The number of searches run, the first included
+         */
+        public final int iterations;
+
+        Result (ActionPath path, int cost, double bound, int iterations) {
+            this.path = path;
+            this.cost = cost;
+            this.bound = bound;
+            this.iterations = iterations;
+        }
+    }
+
+    /**
+     * Searches the given problem for as long as the budget allows, returning the
+     * best solution found. The first search always runs to completion, however
+     * long it takes, so that there is a solution to return.
+     *
+     * @param problem The SearchProblem to solve, whose heuristic must be consistent
+     * @param initialWeight Weight on the heuristic for the first search, at least 1
+     * @param budgetNanos Time allowed for searching, in nanoseconds
+     * @param stats Stats to count into, or null
+     * @return The best solution found, or null if no goal can be reached
+     */
+    public static Result search (SearchProblem problem, double initialWeight, long budgetNanos, SolverStats stats) {
+        if (initialWeight < 1) {
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+        }
+        stats = SolverStats.begin("pathfinder.arastar", stats);
+        Result result = new AnytimeSearch(problem, stats).run(initialWeight, System.nanoTime() + budgetNanos);
+        if (stats != null) {
+            stats.end();
+        }
+        return result;
+    }
+
+
+    // Search state, kept across improvements
+    // -----------------------------------------------------------------------------
+
+    private final SearchProblem problem;
+    private final SolverStats stats;
+    private final int[] history, parent, closedIn, successors;
+    private final boolean[] inOpen, inIncons;
+    private final LongHeap open = new LongHeap();
+    private int[] incons = new int[64];
+    private int inconsSize, iteration, weight, goal = -1;
+
+    /**
+     * System.nanoTime at which to stop, compared by difference so that a budget
+     * as large as Long.MAX_VALUE wraps around rather than ending the search at once
+     */
+    private long deadline;
+
+    private AnytimeSearch (SearchProblem problem, SolverStats stats) {
+        int n = problem.stateCount();
+        this.problem = problem;
+        this.stats = stats;
+        history = new int[n];
+        parent = new int[n];
+        closedIn = new int[n];
+        inOpen = new boolean[n];
+        inIncons = new boolean[n];
+        successors = new int[problem.maxSuccessors()];
+        Arrays.fill(history, Integer.MAX_VALUE);
+    }
+
+    private Result run (double initialWeight, long deadline) {
+        this.deadline = deadline;
+        weight = (int) Math.ceil(initialWeight * SCALE);
+        int root = problem.initialState();
+        history[root] = 0;
+        parent[root] = -1;
+        if (problem.isGoal(root)) {
+            goal = root;
+        }
+        open(root);
+
+        Result best = null;
+        int provenWeight = weight;
+        while (true) {
+            iteration++;
+            boolean finished = improvePath(best == null);
+            if (goal < 0) {
+                return null;
+            }
+            // States along the goal's path may have been improved since the goal
+            // was last reached, so the path can be cheaper than the goal's history
+            int cost = pathCost(goal);
+            if (finished) {
+                provenWeight = weight;
+            }
+            if (finished || best == null || cost < best.cost) {
+                best = new Result(ActionPath.retrace(problem, parent, goal), cost, bound(cost, provenWeight), iteration);
+            }
+            if (!finished || best.bound <= 1 || weight == SCALE || System.nanoTime() - deadline >= 0) {
+                return best;
+            }
+
+            // Lower the weight, and re-open the states whose costs dropped after
+            // they were expanded, re-keying the whole of OPEN for the new weight
+            int[] reopen = openStates();
+            weight = Math.max(SCALE, weight - (int) (WEIGHT_STEP * SCALE));
+            open.clear();
+            for (int state : reopen) {
+                open.push(key(state), state);
+            }
+            for (int i = 0; i < inconsSize; i++) {
+                inIncons[incons[i]] = false;
+                open(incons[i]);
+            }
+            inconsSize = 0;
+        }
+    }
+
+    /**
+     * Expands states in order of weighted f-score until none could improve on the
+     * best goal found so far.
+     * @param mustFinish Whether to ignore the deadline, as for the first search
+     * @return false if the search was cut short by the deadline
+     */
+    private boolean improvePath (boolean mustFinish) {
+        int expanded = 0;
+        while (!open.isEmpty() && (goal < 0 || open.topKey() < (long) history[goal] * SCALE)) {
+            int curr = open.pop();
+
+            // Skip stale copies of states since re-keyed or already expanded
+            if (!inOpen[curr] || open.lastKey() != key(curr)) {
+                continue;
+            }
+            inOpen[curr] = false;
+            closedIn[curr] = iteration;
+            if (stats != null) {
+                stats.frontier(open.size() + 1);
+                stats.nodesExpanded++;
+            }
+            if (!mustFinish && ++expanded % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            int count = problem.successors(curr, successors);
+            for (int i = 0; i < count; i++) {
+                int child = successors[i],
+                    childHistory = history[curr] + problem.cost(curr, child);
+                if (childHistory < history[child]) {
+                    history[child] = childHistory;
+                    parent[child] = curr;
+                    if (problem.isGoal(child) && (goal < 0 || childHistory < history[goal])) {
+                        goal = child;
+                    }
+                    if (closedIn[child] != iteration) {
+                        open(child);
+                    } else if (!inIncons[child]) {
+                        inIncons[child] = true;
+                        if (inconsSize == incons.length) {
+                            incons = Arrays.copyOf(incons, inconsSize * 2);
+                        }
+                        incons[inconsSize++] = child;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void open (int state) {
+        inOpen[state] = true;
+        open.push(key(state), state);
+    }
+
+    private long key (int state) {
+        return (long) history[state] * SCALE + (long) weight * problem.heuristic(state);
+    }
+
+    /**
+     * Returns the states in OPEN, found from the heap's live entries rather than
+     * by scanning every state: each has exactly one entry whose key is current.
+     */
+    private int[] openStates () {
+        int[] result = new int[open.size()];
+        int count = 0;
+        for (int i = 0; i < open.size(); i++) {
+            int state = open.stateAt(i);
+            if (inOpen[state] && open.keyAt(i) == key(state)) {
+                result[count++] = state;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private int pathCost (int end) {
+        int cost = 0;
+        for (int curr = end; parent[curr] >= 0; curr = parent[curr]) {
+            cost += problem.cost(parent[curr], curr);
+        }
+        return cost;
+    }
+
+    /**
+     * Returns the suboptimality bound of a solution of the given cost: the cost
+     * over the least unweighted f-score of any state that could still lead
+     * somewhere cheaper, and never more than the weight of the last search that
+     * finished. A search cut short by the deadline proves nothing of its own
+     * weight, so a cheaper path it finds is only as good as the last one proven.
+     */
+    private double bound (int cost, int provenWeight) {
+        long least = Long.MAX_VALUE;
+        for (int state : openStates()) {
+            least = Math.min(least, (long) history[state] + problem.heuristic(state));
+        }
+        for (int i = 0; i < inconsSize; i++) {
+            least = Math.min(least, (long) history[incons[i]] + problem.heuristic(incons[i]));
+        }
+        if (least >= cost) {
+            return 1;
+        }
+        return Math.min((double) provenWeight / SCALE, (double) cost / least);
+    }
+
+
+    /**
+     * Binary min-heap of states keyed by long priorities, with lazy deletion.
+     */
+    private static class LongHeap {
+
+        private long[] keys = new long[64];
+        private int[] states = new int[64];
+        private int size;
+        private long lastKey;
+
+        boolean isEmpty () { return size == 0; }
+
+        int size () { return size; }
+
+        long topKey () { return keys[0]; }
+
+        /**
+         * @return The key of the state most recently popped
+         */
+        long lastKey () { return lastKey; }
+
+        void clear () { size = 0; }
+
+        int stateAt (int i) { return states[i]; }
+
+        long keyAt (int i) { return keys[i]; }
+
+        void push (long key, int state) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                states = Arrays.copyOf(states, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && key < keys[(i - 1) / 2]) {
+                keys[i] = keys[(i - 1) / 2];
+                states[i] = states[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            keys[i] = key;
+            states[i] = state;
+        }
+
+        int pop () {
+            int top = states[0];
+            lastKey = keys[0];
+            long key = keys[--size];
+            int state = states[size], i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                states[i] = states[child];
+                i = child;
+            }
+            keys[i] = key;
+            states[i] = state;
+            return top;
+        }
+    }
+
+}
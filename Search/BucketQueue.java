@@ -0,0 +1,95 @@
+package pathfinder.search;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Frontier for searches with small integer step costs (Dial's algorithm), holding
+ * states in a circular array of buckets indexed by priority, so that push and pop
+ * are O(1) and no comparisons or boxing take place.
+ * <p>
+ * Each priority pushed must lie within maxSpread above the last one popped, which holds for
+ * Dijkstra when maxSpread is the largest step cost, and for A* with a consistent
+ * heuristic when it is the largest step cost plus the largest change in heuristic
+ * across a step.
+ */
+public class BucketQueue implements Frontier {
+    
+    private final int[] heads;
+    private final int mask;
+    private int[] states = new int[64],
+                  next = new int[64];
+    private int free = -1, allocated, size, min;
+    
+    /**
+     * Constructs an empty BucketQueue.
+     * @param maxSpread Largest amount by which a pushed priority may exceed the last popped
+     */
+    public BucketQueue (int maxSpread) {
+        if (maxSpread < 0 || maxSpread >= 1 << 30) {
+            throw new IllegalArgumentException("Invalid priority spread " + maxSpread);
+        }
+        heads = new int[Integer.highestOneBit(Math.max(1, maxSpread)) << 1];
+        Arrays.fill(heads, -1);
+        mask = heads.length - 1;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException If the priority falls outside of the
+     * spread given at construction
+     */
+    @Override
+    public void push (int state, int priority) {
+        if (priority < min || priority - min > mask) {
+            if (size > 0) {
+                throw new IllegalArgumentException("Priority " + priority + " outside of bucket range");
+            }
+            min = priority;
+        }
+        int entry;
+        if (free >= 0) {
+            entry = free;
+            free = next[entry];
+        } else {
+            if (allocated == states.length) {
+                states = Arrays.copyOf(states, allocated * 2);
+                next = Arrays.copyOf(next, allocated * 2);
+            }
+            entry = allocated++;
+        }
+        int bucket = priority & mask;
+        states[entry] = state;
+        next[entry] = heads[bucket];
+        heads[bucket] = entry;
+        size++;
+    }
+    
+    @Override
+    public int pop () {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        while (heads[min & mask] < 0) {
+            min++;
+        }
+        int bucket = min & mask,
+            entry = heads[bucket];
+        heads[bucket] = next[entry];
+        next[entry] = free;
+        free = entry;
+        size--;
+        return states[entry];
+    }
+    
+    @Override
+    public boolean isEmpty () {
+        return size == 0;
+    }
+    
+    @Override
+    public int size () {
+        return size;
+    }
+    
+}
@@ -0,0 +1,27 @@
+package pathfinder.search;
+
+/**
+ * Frontier of a best-first search over int-encoded states, which always yields
+ * a state of least priority next. States may be pushed more than once, in which
+ * case stale copies are returned too and should be skipped by the search.
+ */
+public interface Frontier {
+    
+    /**
+     * Adds the given state to the frontier with the given priority.
+     * @param state Non-negative int id of the state
+     * @param priority The state's priority, e.g., its f-score
+     */
+    void push (int state, int priority);
+    
+    /**
+     * Removes and returns a state of least priority.
+     * @throws java.util.NoSuchElementException If the frontier is empty
+     */
+    int pop ();
+    
+    boolean isEmpty ();
+    
+    int size ();
+    
+}
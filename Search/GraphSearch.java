@@ -0,0 +1,194 @@
+package pathfinder.search;
+
+import java.util.Arrays;
+
+import metrics.SolverStats;
+
+/**
+ * Search engines over any {@link SearchProblem}: breadth-first search, Dijkstra's
+ * algorithm and A*. Each is a graph search that never expands a state twice, and
+ * returns its solution as the ActionPath from the initial state to a goal.
+ */
+public class GraphSearch {
+    
+    /**
+     * Largest spread of priorities for which best-first search uses a
+     * BucketQueue rather than a heap
+     */
+    static final int BUCKET_SPREAD_LIMIT = 1024;
+    
+    private static final int UNSEEN = -2, ROOT = -1;
+    
+    /**
+     * Breadth-first search, which finds a solution of fewest steps.
+     * 
+     * @param problem The SearchProblem to solve
+     * @return The actions leading from the initial state to a goal, or null
+     * if no goal can be reached
+     */
+    public static ActionPath breadthFirst (SearchProblem problem) {
+        return breadthFirst(problem, null);
+    }
+    
+    /**
+     * Breadth-first search, counting nodes expanded and peak frontier size into
+     * the given stats.
+     * 
+     * @param problem The SearchProblem to solve
+     * @param stats Stats to count into, or null
+     * @return The actions leading from the initial state to a goal, or null
+     * if no goal can be reached
+     */
+    public static ActionPath breadthFirst (SearchProblem problem, SolverStats stats) {
+        stats = SolverStats.begin("pathfinder.bfs", stats);
+        ActionPath path = breadthFirstSearch(problem, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return path;
+    }
+    
+    private static ActionPath breadthFirstSearch (SearchProblem problem, SolverStats stats) {
+        int[] parent = new int[problem.stateCount()],
+              queue = new int[problem.stateCount()],
+              successors = new int[problem.maxSuccessors()];
+        Arrays.fill(parent, UNSEEN);
+        int head = 0, tail = 0,
+            root = problem.initialState();
+        parent[root] = ROOT;
+        queue[tail++] = root;
+        
+        while (head < tail) {
+            if (stats != null) {
+                stats.frontier(tail - head);
+                stats.nodesExpanded++;
+            }
+            int curr = queue[head++];
+            if (problem.isGoal(curr)) {
+                return ActionPath.retrace(problem, parent, curr);
+            }
+            int count = problem.successors(curr, successors);
+            for (int i = 0; i < count; i++) {
+                int child = successors[i];
+                if (parent[child] == UNSEEN) {
+                    parent[child] = curr;
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Dijkstra's algorithm, i.e., uniform-cost search, which finds a solution
+     * of least cost without consulting the problem's heuristic.
+     * 
+     * @param problem The SearchProblem to solve
+     * @return The actions leading from the initial state to a goal, or null
+     * if no goal can be reached
+     */
+    public static ActionPath dijkstra (SearchProblem problem) {
+        return dijkstra(problem, null);
+    }
+    
+    /**
+     * Dijkstra's algorithm, counting nodes expanded and peak frontier size into
+     * the given stats.
+     * 
+     * @param problem The SearchProblem to solve
+     * @param stats Stats to count into, or null
+     * @return The actions leading from the initial state to a goal, or null
+     * if no goal can be reached
+     */
+    public static ActionPath dijkstra (SearchProblem problem, SolverStats stats) {
+        return bestFirst(problem, false, SolverStats.begin("pathfinder.dijkstra", stats));
+    }
+    
+    /**
+     * A* search, which finds a solution of least cost so long as the problem's
+     * heuristic is consistent.
+     * 
+     * @param problem The SearchProblem to solve
+     * @return The actions leading from the initial state to a goal, or null
+     * if no goal can be reached
+     */
+    public static ActionPath aStar (SearchProblem problem) {
+        return aStar(problem, null);
+    }
+    
+    /**
+     * A* search, counting nodes expanded and peak frontier size into the given stats.
+     * 
+     * @param problem The SearchProblem to solve
+     * @param stats Stats to count into, or null
+     * @return The actions leading from the initial state to a goal, or null
+     * if no goal can be reached
+     */
+    public static ActionPath aStar (SearchProblem problem, SolverStats stats) {
+        return bestFirst(problem, true, SolverStats.begin("pathfinder.astar", stats));
+    }
+    
+    /**
+     * Returns a Frontier suited to the given problem: with small integer step
+     * costs, every priority pushed is within maxCost (plus the heuristic's largest
+     * increase) of the last one popped, so a bucket queue gives O(1) operations.
+     */
+    static Frontier frontierFor (SearchProblem problem, boolean informed) {
+        long spread = (long) problem.maxCost() + (informed ? problem.maxHeuristicIncrease() : 0);
+        return (spread <= BUCKET_SPREAD_LIMIT) ? new BucketQueue((int) spread) : new HeapFrontier();
+    }
+    
+    private static ActionPath bestFirst (SearchProblem problem, boolean informed, SolverStats stats) {
+        ActionPath path = bestFirstSearch(problem, informed, stats);
+        if (stats != null) {
+            stats.end();
+        }
+        return path;
+    }
+    
+    private static ActionPath bestFirstSearch (SearchProblem problem, boolean informed, SolverStats stats) {
+        int n = problem.stateCount();
+        int[] history = new int[n],
+              parent = new int[n],
+              successors = new int[problem.maxSuccessors()];
+        boolean[] graveyard = new boolean[n];
+        Arrays.fill(history, Integer.MAX_VALUE);
+        Frontier frontier = frontierFor(problem, informed);
+        
+        int root = problem.initialState();
+        history[root] = 0;
+        parent[root] = ROOT;
+        frontier.push(root, informed ? problem.heuristic(root) : 0);
+        
+        while (!frontier.isEmpty()) {
+            int curr = frontier.pop();
+            
+            // Skip stale copies of states already expanded along a cheaper path
+            if (graveyard[curr]) {
+                continue;
+            }
+            graveyard[curr] = true;
+            if (stats != null) {
+                stats.frontier(frontier.size() + 1);
+                stats.nodesExpanded++;
+            }
+            if (problem.isGoal(curr)) {
+                return ActionPath.retrace(problem, parent, curr);
+            }
+            
+            int count = problem.successors(curr, successors);
+            for (int i = 0; i < count; i++) {
+                int child = successors[i],
+                    childHistory = history[curr] + problem.cost(curr, child);
+                if (childHistory < history[child]) {
+                    history[child] = childHistory;
+                    parent[child] = curr;
+                    frontier.push(child, childHistory + (informed ? problem.heuristic(child) : 0));
+                }
+            }
+        }
+        // If the frontier is empty, all states have been expanded with no solution found
+        return null;
+    }
+    
+}
@@ -0,0 +1,35 @@
+package pathfinder.search;
+
+/**
+ * Shared helpers for 4-connected maze grids whose cells are numbered row-major,
+ * i.e., as row * cols + col.
+ */
+public final class Grid {
+    
+    /**
+     * Actions in the order of the offsets in DROW and DCOL
+     */
+    public static final String[] ACTIONS = {"U", "D", "L", "R"};
+    public static final int[] DROW = {-1, 1, 0, 0},
+                              DCOL = {0, 0, -1, 1};
+    
+    private Grid () {}
+    
+    /**
+     * Returns the index into ACTIONS of the action that moves between two
+     * adjacent cells.
+     */
+    public static int direction (int from, int to, int cols) {
+        if (to == from - cols) return 0;
+        if (to == from + cols) return 1;
+        return (to == from - 1) ? 2 : 3;
+    }
+    
+    /**
+     * Returns the Manhattan distance between two cells.
+     */
+    public static int manhattan (int a, int b, int cols) {
+        return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+    }
+    
+}
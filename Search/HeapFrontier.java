@@ -0,0 +1,62 @@
+package pathfinder.search;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Frontier for searches with arbitrary step costs: a binary min-heap of states
+ * packed with their priorities into primitive longs.
+ */
+public class HeapFrontier implements Frontier {
+    
+    private long[] heap = new long[64];
+    private int size;
+    
+    @Override
+    public void push (int state, int priority) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        long entry = ((long) priority << 32) | state;
+        int i = size++;
+        while (i > 0 && entry < heap[(i - 1) / 2]) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = entry;
+    }
+    
+    @Override
+    public int pop () {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int state = (int) heap[0];
+        long last = heap[--size];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return state;
+    }
+    
+    @Override
+    public boolean isEmpty () {
+        return size == 0;
+    }
+    
+    @Override
+    public int size () {
+        return size;
+    }
+    
+}
@@ -0,0 +1,82 @@
+package pathfinder.search;
+
+/**
+ * Specifies a search problem over dense int-encoded states, in the range
+ * [0, stateCount), so that search engines can keep all of their bookkeeping in
+ * primitive arrays indexed by state. Engines in {@link GraphSearch} are written
+ * once against this interface and shared by every problem that implements it.
+ */
+public interface SearchProblem {
+    
+    /**
+     * @return The number of states; every state is an int in [0, stateCount)
+     */
+    int stateCount ();
+    
+    /**
+     * @return The state from which the search begins
+     */
+    int initialState ();
+    
+    /**
+     * Returns whether or not the given state is a Goal state.
+     */
+    boolean isGoal (int state);
+    
+    /**
+     * Writes the states reachable in one step from the given state into the
+     * caller's buffer, which must hold at least {@link #maxSuccessors()} states.
+     * 
+     * @param state The state to expand
+     * @param successors Buffer to write the successor states into
+     * @return The number of successors written
+     */
+    int successors (int state, int[] successors);
+    
+    /**
+     * @return The largest number of successors that any state can have
+     */
+    int maxSuccessors ();
+    
+    /**
+     * Returns the cost of stepping from one state to a successor of it.
+     */
+    int cost (int from, int to);
+    
+    /**
+     * Returns the code of the action that steps from one state to a successor
+     * of it, as an index into {@link #actionNames()}.
+     */
+    int action (int from, int to);
+    
+    /**
+     * @return The names of this problem's actions, indexed by action code; at
+     * most 128 of them
+     */
+    String[] actionNames ();
+    
+    /**
+     * Returns an estimate of the cost from the given state to the nearest goal,
+     * which must never overestimate it; zero unless overridden.
+     */
+    default int heuristic (int state) {
+        return 0;
+    }
+    
+    /**
+     * Returns an upper bound on the cost of any single step, or Integer.MAX_VALUE
+     * if there is none; engines use it to pick a frontier for small integer costs.
+     */
+    default int maxCost () {
+        return Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Returns an upper bound on how much the heuristic can grow across any
+     * single step; zero unless the heuristic is overridden.
+     */
+    default int maxHeuristicIncrease () {
+        return 0;
+    }
+    
+}